@@ -0,0 +1,25 @@
+package io.vevox.vx.lib.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of <code>benchmarks.jar</code>. Accepts the usual JMH command line, always adding
+ * the GC profiler so that allocation rates are reported alongside timings.
+ * <pre>
+ * java -jar target/benchmarks.jar [regex] [jmh options]
+ * </pre>
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+public class Benchmarks {
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cli = new CommandLineOptions(args);
+    new Runner(new OptionsBuilder().parent(cli).addProfiler(GCProfiler.class).build()).run();
+  }
+
+}
@@ -0,0 +1,98 @@
+package io.vevox.vx.lib.benchmarks;
+
+import io.vevox.vx.lib.logging.LoggingLevel;
+import io.vevox.vx.lib.logging.Transport;
+import io.vevox.vx.lib.logging.TransportConsole;
+import io.vevox.vx.lib.logging.vxLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link TransportConsole} formatting, with the console sender stubbed out so no server
+ * is needed.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConsoleBenchmark {
+
+  /**
+   * A console transport keeping the last line it would have sent.
+   */
+  static class StubConsole extends TransportConsole {
+
+    String line;
+
+    StubConsole() {
+      super(LoggingLevel.DEBUG);
+    }
+
+    @Override
+    protected void send(String line) {
+      this.line = line;
+    }
+
+    @Override
+    protected void send(String[] lines) {
+      line = lines[lines.length - 1];
+    }
+
+  }
+
+  private StubConsole console;
+  private vxLogger logger;
+  private Message message;
+
+  @Setup
+  public void setup() {
+    console = new StubConsole();
+    logger = new vxLogger("bench", console);
+    message = new Message("Player joined the game", logger, LoggingLevel.INFO);
+  }
+
+  @Benchmark
+  public String format() {
+    console.receive(message);
+    return console.line;
+  }
+
+  @Benchmark
+  public String logPlain() {
+    logger.info("Player joined the game");
+    return console.line;
+  }
+
+  @Benchmark
+  public String logTemplate() {
+    logger.logp(LoggingLevel.INFO, "Player {} joined in {} ms", "Notch", 42);
+    return console.line;
+  }
+
+  /**
+   * Exposes the protected message constructor.
+   */
+  private static class Message extends Transport.TransportedMessage {
+
+    private Message(String message, vxLogger logger, LoggingLevel level) {
+      super(message, logger, level);
+    }
+
+  }
+
+}
@@ -0,0 +1,111 @@
+package io.vevox.vx.lib.benchmarks;
+
+import io.vevox.vx.lib.logging.LoggingLevel;
+import io.vevox.vx.lib.logging.vxLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a synchronous {@link vxLogger} call on the calling thread, by number of transports,
+ * message style and depth of the logger hierarchy. Transports accept {@link LoggingLevel#INFO}
+ * and above, so {@link LoggingLevel#DEBUG} calls measure the disabled-level fast path.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggerBenchmark {
+
+  private static final String PLAYER = "Notch";
+  private static final int MILLIS = 42;
+
+  @State(Scope.Benchmark)
+  public static class Transports {
+
+    @Param({ "0", "1", "8" })
+    int transports;
+
+    vxLogger logger;
+
+    @Setup
+    public void setup() {
+      logger = new vxLogger("bench");
+      for (int i = 0; i < transports; i++)
+        logger.add(new SinkTransport("sink-" + i, LoggingLevel.INFO));
+    }
+
+  }
+
+  @State(Scope.Benchmark)
+  public static class Hierarchy {
+
+    @Param({ "1", "8", "32" })
+    int depth;
+
+    vxLogger leaf;
+
+    @Setup
+    public void setup() {
+      leaf = new vxLogger("bench-0", new SinkTransport("sink", LoggingLevel.INFO));
+      for (int i = 1; i < depth; i++)
+        leaf = new vxLogger("bench-" + i, leaf);
+    }
+
+  }
+
+  @Benchmark
+  public void plain(Transports state) {
+    state.logger.info("Player joined the game");
+  }
+
+  @Benchmark
+  public void formatted(Transports state) {
+    state.logger.info("Player %s joined in %d ms", PLAYER, MILLIS);
+  }
+
+  @Benchmark
+  public void template(Transports state) {
+    state.logger.logp(LoggingLevel.INFO, "Player {} joined in {} ms", PLAYER, MILLIS);
+  }
+
+  @Benchmark
+  public void disabledPlain(Transports state) {
+    state.logger.debug("Player joined the game");
+  }
+
+  @Benchmark
+  public void disabledFormatted(Transports state) {
+    state.logger.debug("Player %s joined in %d ms", PLAYER, MILLIS);
+  }
+
+  @Benchmark
+  public void disabledTemplate(Transports state) {
+    state.logger.logp(LoggingLevel.DEBUG, "Player {} joined in {} ms", PLAYER, MILLIS);
+  }
+
+  @Benchmark
+  public void hierarchy(Hierarchy state) {
+    state.leaf.logp(LoggingLevel.INFO, "Player {} joined in {} ms", PLAYER, MILLIS);
+  }
+
+  @Benchmark
+  public void hierarchyDisabled(Hierarchy state) {
+    state.leaf.logp(LoggingLevel.DEBUG, "Player {} joined in {} ms", PLAYER, MILLIS);
+  }
+
+}
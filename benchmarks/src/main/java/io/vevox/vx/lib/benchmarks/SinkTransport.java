@@ -0,0 +1,43 @@
+package io.vevox.vx.lib.benchmarks;
+
+import io.vevox.vx.lib.logging.LoggingLevel;
+import io.vevox.vx.lib.logging.Transport;
+
+/**
+ * A transport that renders each message and discards it, so benchmarks measure the cost of the
+ * logger rather than of any output.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+class SinkTransport implements Transport {
+
+  private final String name;
+  private final LoggingLevel level;
+
+  /**
+   * The total length of received messages, kept so rendering cannot be optimized away.
+   */
+  long received;
+
+  SinkTransport(String name, LoggingLevel level) {
+    this.name = name;
+    this.level = level;
+  }
+
+  @Override
+  public LoggingLevel level() {
+    return level;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public void receive(TransportedMessage msg) {
+    received += msg.message().length();
+  }
+
+}
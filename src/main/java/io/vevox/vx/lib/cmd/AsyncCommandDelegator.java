@@ -0,0 +1,86 @@
+package io.vevox.vx.lib.cmd;
+
+import io.vevox.vx.lib.vxLib;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link CommandDelegator} whose commands run off the server's main thread, for commands doing
+ * slow work such as database lookups, statistics or file exports.
+ * <p>
+ * The command is handed to {@link AsyncCommands}, which runs {@link #commandAsync} on a worker
+ * thread. Messages, titles and anything else sent to the sender given to it through its
+ * <code>send</code> methods are delivered on the main thread, as are any {@link CommandException}s
+ * it throws or completes its future with; its <code>spigot()</code> cannot be used. No other server
+ * state should be touched from the worker thread, including through the sender's other methods;
+ * use the scheduler to get back to the main thread for that.
+ * <p>
+ * At most {@link #maxConcurrent(Command)} executions of each command run at once; further uses
+ * are refused with a {@link CommandException} until one finishes. An execution that
+ * {@link #timeout(Command) times out} keeps its place until its thread returns.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused")
+public interface AsyncCommandDelegator extends CommandDelegator {
+
+  /**
+   * Command delegation method executed on a worker thread when a command assigned to this
+   * delegator is executed.
+   *
+   * @param sender The sender of the command, whose messages are delivered on the main thread.
+   * @param cmd    The command that was executed.
+   * @param args   The arguments of the command.
+   *
+   * @return A future completing once the command is done, if it continues asynchronously, or null
+   * if it is done when this returns.
+   * @throws CommandException If any issues arise during command handling.
+   */
+  @Nullable
+  CompletableFuture<?> commandAsync(CommandSender sender, Command cmd, String... args) throws CommandException;
+
+  /**
+   * Gets how many executions of a command may run at once.
+   *
+   * @param cmd The command.
+   *
+   * @return The limit, {@link AsyncCommands#DEFAULT_MAX_CONCURRENT} by default.
+   */
+  default int maxConcurrent(Command cmd) {
+    return AsyncCommands.DEFAULT_MAX_CONCURRENT;
+  }
+
+  /**
+   * Gets how long an execution of a command may run before it is given up on, telling the sender
+   * and releasing its place among all running commands. A command that ignores interruption may
+   * keep running on its thread after that, and keeps its place under
+   * {@link #maxConcurrent(Command)} until it returns.
+   *
+   * @param cmd The command.
+   *
+   * @return The timeout in milliseconds, {@link AsyncCommands#DEFAULT_TIMEOUT_MILLIS} by default,
+   * or zero for none.
+   */
+  default long timeout(Command cmd) {
+    return AsyncCommands.DEFAULT_TIMEOUT_MILLIS;
+  }
+
+  /**
+   * Gets the executor running this delegator's commands.
+   *
+   * @return The executor, by default the one shared through vxLib.
+   */
+  default AsyncCommands executor() {
+    return vxLib.asyncCommands();
+  }
+
+  @Override
+  default void command(CommandSender sender, Command cmd, String... args) throws CommandException {
+    executor().submit(this, sender, cmd, args);
+  }
+
+}
@@ -0,0 +1,295 @@
+package io.vevox.vx.lib.cmd;
+
+import io.vevox.vx.lib.logging.vxLogger;
+import org.apache.commons.lang3.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+/**
+ * Runs the commands of {@link AsyncCommandDelegator}s on a bounded pool of worker threads and
+ * hands their results back to the server's main thread.
+ * <p>
+ * Where the JDK supports virtual threads, each command runs on its own virtual thread; otherwise
+ * on a pool of platform threads. Either way, at most {@link #maxRunning()} commands run at once,
+ * and at most {@link AsyncCommandDelegator#maxConcurrent(Command)} of any one command. A command
+ * over either limit is refused right away rather than queued, so the main thread never waits.
+ * <p>
+ * A command still running after its {@link AsyncCommandDelegator#timeout(Command) timeout} is
+ * given up on: its future is cancelled, the thread running it is interrupted, the sender is told it
+ * took too long and it stops counting against {@link #maxRunning()}. It keeps counting against its
+ * own command's limit until its thread actually returns, so a command stuck in a call that ignores
+ * interruption cannot be started again and again.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class AsyncCommands {
+
+  public static final int DEFAULT_MAX_RUNNING = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+  public static final int DEFAULT_MAX_CONCURRENT = 4;
+  public static final long DEFAULT_TIMEOUT_MILLIS = 60000;
+
+  private static final AtomicInteger POOLS = new AtomicInteger();
+
+  private final Plugin plugin;
+  private final int maxRunning;
+  private final ExecutorService executor;
+  private final boolean virtual;
+
+  private final Semaphore running;
+  private final Map<Command, Semaphore> limits = Collections.synchronizedMap(new WeakHashMap<>());
+  private final ScheduledThreadPoolExecutor timer;
+
+  private volatile boolean closed;
+
+  /**
+   * Creates a new executor running up to {@link #DEFAULT_MAX_RUNNING} commands at once.
+   *
+   * @param plugin The plugin to schedule main-thread tasks for.
+   *
+   * @throws IllegalArgumentException If the plugin is null.
+   */
+  public AsyncCommands(Plugin plugin) throws IllegalArgumentException {
+    this(plugin, DEFAULT_MAX_RUNNING);
+  }
+
+  /**
+   * Creates a new executor.
+   *
+   * @param plugin     The plugin to schedule main-thread tasks for.
+   * @param maxRunning The most commands to run at once, across all commands.
+   *
+   * @throws IllegalArgumentException If the plugin is null or the limit is not positive.
+   */
+  public AsyncCommands(Plugin plugin, int maxRunning) throws IllegalArgumentException {
+    Validate.notNull(plugin);
+    Validate.isTrue(maxRunning > 0, "Limit must be positive");
+    this.plugin = plugin;
+    this.maxRunning = maxRunning;
+    this.running = new Semaphore(maxRunning);
+
+    int pool = POOLS.incrementAndGet();
+    this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread thread = new Thread(r, "vxLib-command-" + pool + "-timeout");
+      thread.setDaemon(true);
+      return thread;
+    });
+    timer.setRemoveOnCancelPolicy(true);
+
+    ExecutorService executor = virtualThreads();
+    this.virtual = executor != null;
+    if (executor == null) {
+      AtomicInteger threads = new AtomicInteger();
+      ThreadPoolExecutor platform = new ThreadPoolExecutor(maxRunning, maxRunning, 60, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(), r -> {
+        Thread thread = new Thread(r, "vxLib-command-" + pool + "-" + threads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+      platform.allowCoreThreadTimeOut(true);
+      executor = platform;
+    }
+    this.executor = executor;
+  }
+
+  private static ExecutorService virtualThreads() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Gets the most commands this executor runs at once.
+   *
+   * @return The limit.
+   */
+  public int maxRunning() {
+    return maxRunning;
+  }
+
+  /**
+   * Gets how many commands are running.
+   *
+   * @return The number of commands.
+   */
+  public int running() {
+    return maxRunning - running.availablePermits();
+  }
+
+  /**
+   * Checks whether commands run on virtual threads.
+   *
+   * @return True if they do, false if they run on a pool of platform threads.
+   */
+  public boolean virtual() {
+    return virtual;
+  }
+
+  /**
+   * Starts running a command. Called on the main thread by
+   * {@link AsyncCommandDelegator#command(CommandSender, Command, String...)}.
+   *
+   * @param delegator The delegator of the command.
+   * @param sender    The sender of the command.
+   * @param cmd       The command.
+   * @param args      The arguments of the command.
+   *
+   * @return A future completing on the main thread once the command is done and any exception has
+   * been reported.
+   * @throws CommandException If the command cannot be started because a limit is reached or this
+   *                          executor is closed.
+   */
+  public CompletableFuture<Void> submit(AsyncCommandDelegator delegator, CommandSender sender, Command cmd,
+                                        String... args) throws CommandException {
+    if (closed) throw new CommandException("Commands are not being accepted");
+    Semaphore limit = limits.computeIfAbsent(cmd, c -> new Semaphore(delegator.maxConcurrent(c)));
+    if (!limit.tryAcquire()) throw new CommandException("Command is already running, try again shortly");
+    if (!running.tryAcquire()) {
+      limit.release();
+      throw new CommandException("Server is busy, try again shortly");
+    }
+
+    CommandSender async = MainThreadSender.wrap(sender, this);
+    CompletableFuture<Object> body = new CompletableFuture<>();
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    AtomicReference<Thread> worker = new AtomicReference<>();
+    AtomicBoolean released = new AtomicBoolean(), limitReleased = new AtomicBoolean();
+    Runnable releaseLimit = () -> {
+      if (limitReleased.compareAndSet(false, true)) limit.release();
+    };
+    long timeout = delegator.timeout(cmd);
+    ScheduledFuture<?> expiry = timeout > 0 ? timer.schedule(() -> {
+      if (body.completeExceptionally(new TimeoutException())) {
+        synchronized (worker) {
+          Thread thread = worker.get();
+          if (thread != null) thread.interrupt();
+        }
+      }
+    }, timeout, TimeUnit.MILLISECONDS) : null;
+
+    body.whenComplete((result, thrown) -> {
+      if (expiry != null) expiry.cancel(false);
+      if (!released.compareAndSet(false, true)) return;
+      running.release();
+      onMain(() -> {
+        if (thrown != null) report(sender, cmd, thrown);
+        done.complete(null);
+      });
+    });
+
+    try {
+      executor.execute(() -> {
+        if (body.isDone()) {
+          releaseLimit.run();
+          return;
+        }
+        worker.set(Thread.currentThread());
+        boolean continues = false;
+        try {
+          CompletableFuture<?> result = delegator.commandAsync(async, cmd, args);
+          if (result == null) {
+            body.complete(null);
+          } else {
+            continues = true;
+            body.whenComplete((r, thrown) -> result.cancel(true));
+            result.whenComplete((r, thrown) -> {
+              releaseLimit.run();
+              if (thrown == null) body.complete(r);
+              else body.completeExceptionally(thrown);
+            });
+          }
+        } catch (Throwable t) {
+          body.completeExceptionally(t);
+        } finally {
+          synchronized (worker) {
+            worker.set(null);
+            // Clear an interrupt meant for this command before the thread runs the next one
+            if (body.isDone()) Thread.interrupted();
+          }
+          if (!continues) releaseLimit.run();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      if (expiry != null) expiry.cancel(false);
+      releaseLimit.run();
+      if (!released.compareAndSet(false, true)) return done;
+      running.release();
+      throw new CommandException("Commands are not being accepted");
+    }
+    return done;
+  }
+
+  private void report(CommandSender sender, Command cmd, Throwable thrown) {
+    while ((thrown instanceof CompletionException || thrown instanceof ExecutionException) && thrown.getCause() != null)
+      thrown = thrown.getCause();
+    if (thrown instanceof CommandException) {
+      CommandDelegator.report(sender, (CommandException) thrown);
+    } else if (thrown instanceof TimeoutException) {
+      vxLogger logger = vxLogger.find(vxLogger.pluginName(plugin.getName()));
+      String message = "Command /" + cmd.getName() + " timed out";
+      if (logger != null) logger.warning(message);
+      else plugin.getLogger().warning(message);
+      sender.sendMessage(ChatColor.RED + "This command took too long and was cancelled");
+    } else {
+      vxLogger logger = vxLogger.find(vxLogger.pluginName(plugin.getName()));
+      String message = "Command /" + cmd.getName() + " failed";
+      if (logger != null) logger.error(message, thrown);
+      else plugin.getLogger().log(Level.SEVERE, message, thrown);
+      sender.sendMessage(ChatColor.RED + "An internal error occurred while executing this command");
+    }
+  }
+
+  /**
+   * Runs a task on the server's main thread: right away if called on it, otherwise by scheduling
+   * it for the next tick.
+   *
+   * @param task The task.
+   */
+  void onMain(Runnable task) {
+    if (Bukkit.getServer() == null || Bukkit.isPrimaryThread()) {
+      task.run();
+      return;
+    }
+    try {
+      Bukkit.getScheduler().runTask(plugin, task);
+    } catch (RuntimeException e) {
+      // The plugin is being disabled and can no longer schedule tasks; nothing is left to reply to
+    }
+  }
+
+  /**
+   * Stops accepting commands and waits for running ones to finish.
+   *
+   * @param timeout The maximum time to wait.
+   * @param unit    The unit of the timeout.
+   *
+   * @return True if every command finished in time.
+   */
+  public boolean close(long timeout, TimeUnit unit) {
+    closed = true;
+    executor.shutdown();
+    timer.shutdownNow();
+    try {
+      return executor.awaitTermination(timeout, unit);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+}
@@ -0,0 +1,247 @@
+package io.vevox.vx.lib.cmd;
+
+import io.vevox.vx.lib.cmd.arg.CommandFlag;
+import org.apache.commons.lang3.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tab completion for a {@link vxCommand}, generated from its subcommands, flags and switches.
+ * <p>
+ * Names are completed from {@link PrefixTrie tries}, so each completion costs time proportional to
+ * the length of the word being completed and the number of suggestions, not the number of names.
+ * Values of flags and positional arguments come from {@link Values suppliers}; what a supplier
+ * returns is put in a trie cached for each sender for a short time, so typing a name does not
+ * rebuild and filter the full list on every keystroke. Matching is case-insensitive.
+ * <p>
+ * A completer should be fully configured before it is {@link #install() installed}.
+ * <pre>
+ * new CommandCompleter(command)
+ *     .subcommands("give", "take")
+ *     .values(playerFlag, CommandCompleter.ONLINE_PLAYERS)
+ *     .install();
+ * </pre>
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class CommandCompleter implements TabCompleter {
+
+  public static final long DEFAULT_TTL_MILLIS = 2000;
+  public static final int MAX_COMPLETIONS = 100;
+
+  private static final int PURGE_SENDERS = 256;
+
+  /**
+   * Supplies the possible values of a flag or argument for a sender.
+   */
+  @FunctionalInterface
+  public interface Values {
+
+    /**
+     * Gets the possible values.
+     *
+     * @param sender The sender completing the command.
+     *
+     * @return The values.
+     */
+    Collection<String> values(CommandSender sender);
+
+  }
+
+  /**
+   * Supplies the names of the players online.
+   */
+  public static final Values ONLINE_PLAYERS = sender -> {
+    Collection<? extends Player> players = Bukkit.getOnlinePlayers();
+    List<String> names = new ArrayList<>(players.size());
+    for (Player player : players) names.add(player.getName());
+    return names;
+  };
+
+  private static final class Cached {
+
+    private final PrefixTrie<String> values;
+    private final long expires;
+
+    private Cached(PrefixTrie<String> values, long expires) {
+      this.values = values;
+      this.expires = expires;
+    }
+
+  }
+
+  private final class Source {
+
+    private final Values values;
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+
+    private Source(Values values) {
+      this.values = values;
+    }
+
+    private PrefixTrie<String> values(CommandSender sender) {
+      long now = System.currentTimeMillis();
+      Cached cached = cache.get(sender.getName());
+      if (cached != null && cached.expires > now) return cached.values;
+
+      PrefixTrie<String> trie = new PrefixTrie<>();
+      for (String value : values.values(sender)) trie.put(value.toLowerCase(Locale.ROOT), value);
+      if (ttlMillis > 0) {
+        if (cache.size() >= PURGE_SENDERS) cache.values().removeIf(c -> c.expires <= now);
+        cache.put(sender.getName(), new Cached(trie, now + ttlMillis));
+      }
+      return trie;
+    }
+
+  }
+
+  private final vxCommand command;
+  private final long ttlMillis;
+
+  private final PrefixTrie<String> subcommands = new PrefixTrie<>();
+  private final Map<CommandFlag, Source> flags = new HashMap<>();
+  private final Map<Integer, Source> arguments = new HashMap<>();
+
+  /**
+   * Creates a new completer, caching supplied values for {@link #DEFAULT_TTL_MILLIS}.
+   *
+   * @param command The command to complete.
+   *
+   * @throws IllegalArgumentException If the command is null.
+   */
+  public CommandCompleter(vxCommand command) throws IllegalArgumentException {
+    this(command, DEFAULT_TTL_MILLIS);
+  }
+
+  /**
+   * Creates a new completer.
+   *
+   * @param command   The command to complete.
+   * @param ttlMillis How long values supplied for a sender are reused, in milliseconds, or 0 to
+   *                  supply them again on every completion.
+   *
+   * @throws IllegalArgumentException If the command is null or the time is negative.
+   */
+  public CommandCompleter(vxCommand command, long ttlMillis) throws IllegalArgumentException {
+    Validate.notNull(command);
+    Validate.isTrue(ttlMillis >= 0, "TTL cannot be negative");
+    this.command = command;
+    this.ttlMillis = ttlMillis;
+  }
+
+  /**
+   * Adds subcommands, completed as the first argument.
+   *
+   * @param names The names of the subcommands.
+   *
+   * @return This completer.
+   */
+  public CommandCompleter subcommands(String... names) {
+    for (String name : names) subcommands.put(name.toLowerCase(Locale.ROOT), name);
+    return this;
+  }
+
+  /**
+   * Sets the supplier of values for a flag.
+   *
+   * @param flag   The flag.
+   * @param values The supplier.
+   *
+   * @return This completer.
+   * @throws IllegalArgumentException If the flag or supplier is null.
+   */
+  public CommandCompleter values(CommandFlag flag, Values values) throws IllegalArgumentException {
+    Validate.notNull(flag);
+    Validate.notNull(values);
+    flags.put(flag, new Source(values));
+    return this;
+  }
+
+  /**
+   * Sets the supplier of values for a positional argument.
+   *
+   * @param index  The index of the argument, from 0.
+   * @param values The supplier.
+   *
+   * @return This completer.
+   * @throws IllegalArgumentException If the index is negative or the supplier is null.
+   */
+  public CommandCompleter argument(int index, Values values) throws IllegalArgumentException {
+    Validate.isTrue(index >= 0, "Index cannot be negative");
+    Validate.notNull(values);
+    arguments.put(index, new Source(values));
+    return this;
+  }
+
+  /**
+   * Sets this completer as the tab completer of its command, if the command belongs to a plugin.
+   *
+   * @return This completer.
+   */
+  public CommandCompleter install() {
+    if (command.command instanceof PluginCommand) ((PluginCommand) command.command).setTabCompleter(this);
+    return this;
+  }
+
+  @Override
+  public List<String> onTabComplete(CommandSender sender, Command cmd, String alias, String[] args) {
+    if (args.length == 0) return Collections.emptyList();
+    CommandSpec spec = command.freeze();
+    String last = args[args.length - 1];
+
+    if (args.length > 1) {
+      CommandFlag flag = flagExpectingValue(spec, args[args.length - 2]);
+      if (flag != null) return complete(sender, flags.get(flag), "", last);
+    }
+
+    if (last.startsWith("--")) {
+      int eq = last.indexOf('=');
+      if (eq < 0) return prefixed("--", spec.names(last.substring(2), MAX_COMPLETIONS));
+      Object option = spec.resolve(last, 2, eq);
+      return option instanceof CommandFlag
+          ? complete(sender, flags.get(option), last.substring(0, eq + 1), last.substring(eq + 1))
+          : Collections.emptyList();
+    }
+    if (last.equals("-")) return prefixed("--", spec.names("", MAX_COMPLETIONS));
+    if (last.startsWith("-")) return Collections.emptyList();
+
+    // Positional arguments end at the first flag
+    for (int i = 0; i < args.length - 1; i++)
+      if (args[i].length() > 1 && args[i].charAt(0) == '-') return Collections.emptyList();
+
+    int index = args.length - 1;
+    if (index == 0 && !subcommands.isEmpty())
+      return subcommands.values(last.toLowerCase(Locale.ROOT), MAX_COMPLETIONS);
+    return complete(sender, arguments.get(index), "", last);
+  }
+
+  private static CommandFlag flagExpectingValue(CommandSpec spec, String arg) {
+    if (arg.startsWith("--")) {
+      if (arg.indexOf('=') >= 0) return null;
+      Object option = spec.resolve(arg, 2, arg.length());
+      return option instanceof CommandFlag ? (CommandFlag) option : null;
+    }
+    return arg.length() == 2 && arg.charAt(0) == '-' ? spec.flag(arg.charAt(1)) : null;
+  }
+
+  private List<String> complete(CommandSender sender, Source source, String prefix, String value) {
+    if (source == null) return Collections.emptyList();
+    List<String> values = source.values(sender).values(value.toLowerCase(Locale.ROOT), MAX_COMPLETIONS);
+    return prefix.isEmpty() ? values : prefixed(prefix, values);
+  }
+
+  private static List<String> prefixed(String prefix, List<String> values) {
+    for (int i = 0; i < values.size(); i++) values.set(i, prefix + values.get(i));
+    return values;
+  }
+
+}
@@ -1,6 +1,7 @@
 package io.vevox.vx.lib.cmd;
 
 import com.sun.istack.internal.NotNull;
+import io.vevox.vx.lib.cmd.arg.ArgumentType;
 import io.vevox.vx.lib.cmd.arg.CommandFlag;
 import io.vevox.vx.lib.cmd.arg.CommandSwitch;
 import org.bukkit.ChatColor;
@@ -65,6 +66,21 @@ public interface CommandDelegator extends CommandExecutor {
     };
   }
 
+  static CommandFlag createFlag(String name, char shortName, Predicate<String> validator,
+                                ArgumentType<?> type, String docsMsg, String validationMsg) {
+    return new CommandFlag(name, shortName, validator, type) {
+      @Override
+      public String getValidationMessage() {
+        return validationMsg;
+      }
+
+      @Override
+      public String getDocsMessage() {
+        return docsMsg;
+      }
+    };
+  }
+
   static CommandSwitch createSwitch(String name, String docsMsg) {
     return new CommandSwitch(name) {
       @Override
@@ -90,12 +106,24 @@ public interface CommandDelegator extends CommandExecutor {
     } catch (CommandException.UnhandledCommandException e) {
       return false;
     } catch (CommandException e) {
-      sender.sendMessage(String.format("%s%s%s: %s", ChatColor.RED,
-          e.getClass().getSimpleName(), ChatColor.RESET, e.getMessage()));
+      report(sender, e);
     }
     return true;
   }
 
+  /**
+   * Tells a sender about an exception raised while handling their command.
+   *
+   * @param sender The sender of the command.
+   * @param e      The exception.
+   *
+   * @since 0.2.0-m1.10.2
+   */
+  static void report(CommandSender sender, CommandException e) {
+    sender.sendMessage(String.format("%s%s%s: %s", ChatColor.RED,
+        e.getClass().getSimpleName(), ChatColor.RESET, e.getMessage()));
+  }
+
   /**
    * Command delegation method exeucted when a command assigned to this delegator is
    * executed by a valid {@link CommandSender} and the event is not canceled.
@@ -0,0 +1,248 @@
+package io.vevox.vx.lib.cmd;
+
+import org.apache.commons.lang3.Validate;
+import org.bukkit.command.CommandSender;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * A node in a {@link CommandTree}: a command or subcommand with its own permission, flags and
+ * switches, handler and subcommands.
+ * <p>
+ * Nodes are built when the plugin is enabled and {@link #freeze() frozen} along with their tree,
+ * after which they cannot be changed and are safe to read from any thread.
+ * <pre>
+ * new CommandNode("eco")
+ *     .add(new CommandNode("give", "eco.give", giveOptions, this::give), "add")
+ *     .add(new CommandNode("balance", this::balance), "bal");
+ * </pre>
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class CommandNode {
+
+  /**
+   * Executes a command node.
+   */
+  @FunctionalInterface
+  public interface Handler {
+
+    /**
+     * Executes the command.
+     *
+     * @param sender  The sender of the command.
+     * @param options The arguments following the node's name, parsed with its
+     *                {@link CommandNode#options options}.
+     *
+     * @throws CommandException If any issues arise during command handling.
+     */
+    void execute(CommandSender sender, CommandOptions options) throws CommandException;
+
+  }
+
+  /**
+   * The name of this node, used in the command.
+   */
+  public final String name;
+
+  /**
+   * The permission needed to use this node and any of its subcommands, or null for none.
+   */
+  @Nullable
+  public final String permission;
+
+  /**
+   * The flags and switches of this node.
+   */
+  public final vxCommand options;
+
+  @Nullable
+  private final Handler handler;
+
+  private final Map<String, CommandNode> children = new HashMap<>();
+  private final PrefixTrie<CommandNode> names = new PrefixTrie<>();
+  private CommandCompleter completer;
+
+  private volatile boolean frozen;
+
+  /**
+   * Creates a node without a handler, which only groups its subcommands.
+   *
+   * @param name The {@link #name} of this node.
+   *
+   * @throws IllegalArgumentException If the name is not a valid command argument.
+   */
+  public CommandNode(String name) throws IllegalArgumentException {
+    this(name, null, null, null);
+  }
+
+  /**
+   * Creates a node without a permission, flags or switches.
+   *
+   * @param name    The {@link #name} of this node.
+   * @param handler The handler executing this node.
+   *
+   * @throws IllegalArgumentException If the name is not a valid command argument.
+   */
+  public CommandNode(String name, @Nullable Handler handler) throws IllegalArgumentException {
+    this(name, null, null, handler);
+  }
+
+  /**
+   * Creates a node without flags or switches.
+   *
+   * @param name       The {@link #name} of this node.
+   * @param permission The {@link #permission} of this node.
+   * @param handler    The handler executing this node.
+   *
+   * @throws IllegalArgumentException If the name is not a valid command argument.
+   */
+  public CommandNode(String name, @Nullable String permission, @Nullable Handler handler)
+      throws IllegalArgumentException {
+    this(name, permission, null, handler);
+  }
+
+  /**
+   * Creates a node.
+   *
+   * @param name       The {@link #name} of this node.
+   * @param permission The {@link #permission} of this node.
+   * @param options    The {@link #options} of this node, or null for none.
+   * @param handler    The handler executing this node, or null if it only groups subcommands.
+   *
+   * @throws IllegalArgumentException If the name is not a valid command argument.
+   */
+  public CommandNode(String name, @Nullable String permission, @Nullable vxCommand options,
+                     @Nullable Handler handler) throws IllegalArgumentException {
+    Validate.notNull(name);
+    if (!CommandDelegator.isValidCommandArg(name))
+      throw new IllegalArgumentException("'" + name + "' is not valid command name");
+    this.name = name;
+    this.permission = permission;
+    this.options = options == null ? new vxCommand() { } : options;
+    this.handler = handler;
+  }
+
+  /**
+   * Adds a subcommand.
+   *
+   * @param child   The subcommand.
+   * @param aliases Other names the subcommand can be used by.
+   *
+   * @return This node.
+   * @throws IllegalArgumentException If the subcommand is null, or its name or an alias is already
+   *                                  used by another subcommand or is invalid.
+   * @throws IllegalStateException    If this node is frozen.
+   */
+  public synchronized CommandNode add(CommandNode child, String... aliases)
+      throws IllegalArgumentException, IllegalStateException {
+    Validate.notNull(child);
+    if (frozen) throw new IllegalStateException("Command node is frozen");
+    for (String alias : aliases)
+      if (!CommandDelegator.isValidCommandArg(alias))
+        throw new IllegalArgumentException("'" + alias + "' is not valid command name");
+    if (children.containsKey(child.name))
+      throw new IllegalArgumentException("Subcommand name already in use: " + child.name);
+    for (String alias : aliases)
+      if (children.containsKey(alias))
+        throw new IllegalArgumentException("Subcommand name already in use: " + alias);
+
+    children.put(child.name, child);
+    for (String alias : aliases) children.put(alias, child);
+    names.put(child.name, child);
+    return this;
+  }
+
+  /**
+   * Sets the completer used for the arguments of this node, after any subcommand.
+   *
+   * @param completer The completer, or null for none.
+   *
+   * @return This node.
+   * @throws IllegalStateException If this node is frozen.
+   */
+  public synchronized CommandNode completer(@Nullable CommandCompleter completer) throws IllegalStateException {
+    if (frozen) throw new IllegalStateException("Command node is frozen");
+    this.completer = completer;
+    return this;
+  }
+
+  /**
+   * Freezes this node, its {@link #options} and its subcommands. Nothing more can be added
+   * afterwards.
+   *
+   * @return This node.
+   */
+  public CommandNode freeze() {
+    if (frozen) return this;
+    synchronized (this) {
+      if (frozen) return this;
+      options.freeze();
+      for (CommandNode child : children.values()) child.freeze();
+      frozen = true;
+    }
+    return this;
+  }
+
+  /**
+   * Gets the subcommand with the given name or alias, ignoring case.
+   *
+   * @param name The name or alias.
+   *
+   * @return The subcommand, or null if there is none.
+   */
+  @Nullable
+  public CommandNode child(String name) {
+    return children.get(name.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * Gets the subcommands of this node.
+   *
+   * @return An unmodifiable collection of the subcommands, without repeats for aliases.
+   */
+  public Collection<CommandNode> children() {
+    return Collections.unmodifiableCollection(names.values("", Integer.MAX_VALUE));
+  }
+
+  /**
+   * Checks whether a sender has the {@link #permission} of this node.
+   *
+   * @param sender The sender.
+   *
+   * @return True if the sender may use this node.
+   */
+  public boolean permits(CommandSender sender) {
+    return permission == null || sender.hasPermission(permission);
+  }
+
+  @Nullable
+  Handler handler() {
+    return handler;
+  }
+
+  @Nullable
+  CommandCompleter completer() {
+    return completer;
+  }
+
+  /**
+   * Lists the names of the subcommands a sender may use starting with a prefix.
+   *
+   * @param sender The sender.
+   * @param prefix The prefix.
+   * @param limit  The maximum number of names.
+   *
+   * @return The names.
+   */
+  List<String> complete(CommandSender sender, String prefix, int limit) {
+    List<String> completions = new ArrayList<>();
+    for (CommandNode child : names.values(prefix.toLowerCase(Locale.ROOT), limit))
+      if (child.permits(sender)) completions.add(child.name);
+    return completions;
+  }
+
+}
@@ -1,28 +1,347 @@
 package io.vevox.vx.lib.cmd;
 
+import io.vevox.vx.lib.cmd.arg.ArgumentType;
 import io.vevox.vx.lib.cmd.arg.CommandFlag;
 import io.vevox.vx.lib.cmd.arg.CommandSwitch;
+import org.apache.commons.lang3.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 
+import javax.annotation.Nullable;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * The result of {@link vxCommand#parse(String) parsing} a command: its positional arguments, and
+ * the flags and switches given.
+ * <p>
+ * Flag values are converted to their flag's {@link CommandFlag#type type} once, while parsing, and
+ * numbers are stored unboxed, so the typed accessors only look them up. Players are the exception,
+ * found by {@link #getPlayer(CommandFlag)} on the main thread. Each accessor checks that
+ * it matches the flag's type, and returns the given default if the flag was not used.
+ *
  * @author Matthew Struble
  */
+@SuppressWarnings("unused WeakerAccess")
 public class CommandOptions {
 
   public final String[] args;
 
-  private final Map<CommandFlag, String> flags;
+  private final CommandSpec spec;
+  private final String[] raw;
+  private final long[] numbers;
+  private final Object[] values;
   private final Set<CommandSwitch> switches;
 
+  /**
+   * Collects the flags and switches of a command while it is parsed.
+   */
+  static final class Builder {
+
+    private final CommandSpec spec;
+    private final String[] raw;
+    private final long[] numbers;
+    private final Object[] values;
+    private final Set<CommandSwitch> switches = new HashSet<>();
+
+    Builder(CommandSpec spec) {
+      int flags = spec.flags().size();
+      this.spec = spec;
+      this.raw = new String[flags];
+      this.numbers = new long[flags];
+      this.values = new Object[flags];
+    }
+
+    /**
+     * Validates and converts the value of a flag.
+     *
+     * @param flag  The flag.
+     * @param value The text of its value.
+     *
+     * @throws CommandException If the flag was already given, or its value fails validation or
+     *                          conversion.
+     */
+    void flag(CommandFlag flag, String value) throws CommandException {
+      int i = spec.index(flag);
+      if (raw[i] != null) throw new CommandException("Duplicate flag " + flag.name);
+      if (flag.validator != null && !flag.validator.test(value))
+        throw new CommandException(flag.getValidationMessage());
+
+      try {
+        switch (flag.type.kind()) {
+          case LONG:
+            numbers[i] = flag.type.toLong(value);
+            break;
+          case DOUBLE:
+            numbers[i] = Double.doubleToRawLongBits(flag.type.toDouble(value));
+            break;
+          case OBJECT:
+            values[i] = flag.type.convert(value);
+            break;
+          default:
+            break;
+        }
+      } catch (IllegalArgumentException e) {
+        throw new CommandException("Invalid value for flag " + flag.name + ": " + e.getMessage());
+      }
+      raw[i] = value;
+    }
+
+    void commandSwitch(CommandSwitch s) {
+      switches.add(s);
+    }
+
+    CommandOptions build(String[] args) {
+      return new CommandOptions(args, this);
+    }
+
+  }
+
+  /**
+   * Creates options from flags and switches already parsed, converting each flag's value to its
+   * {@link CommandFlag#type type}.
+   *
+   * @param args     The positional arguments.
+   * @param flags    The flags given, with the text of their values.
+   * @param switches The switches given.
+   *
+   * @throws IllegalArgumentException If a value fails validation or conversion.
+   */
   protected CommandOptions(String[] args, Map<CommandFlag, String> flags,
-                         Set<CommandSwitch> switches) {
+                           Set<CommandSwitch> switches) throws IllegalArgumentException {
+    this(args, builder(flags, switches));
+  }
+
+  private static Builder builder(Map<CommandFlag, String> flags, Set<CommandSwitch> switches)
+      throws IllegalArgumentException {
+    Builder builder = new Builder(new CommandSpec(flags.keySet(), switches));
+    try {
+      for (Map.Entry<CommandFlag, String> flag : flags.entrySet())
+        builder.flag(flag.getKey(), flag.getValue());
+    } catch (CommandException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+    switches.forEach(builder::commandSwitch);
+    return builder;
+  }
+
+  private CommandOptions(String[] args, Builder builder) {
     this.args = args;
-    this.flags = flags;
-    this.switches = switches;
+    this.spec = builder.spec;
+    this.raw = builder.raw;
+    this.numbers = builder.numbers;
+    this.values = builder.values;
+    this.switches = builder.switches;
   }
 
+  private int index(CommandFlag flag, boolean matches, String expected) throws IllegalArgumentException {
+    Validate.notNull(flag);
+    Validate.isTrue(matches, "Flag %s is not %s", flag.name, expected);
+    int i = spec.index(flag);
+    Validate.isTrue(i >= 0, "Flag %s is not part of this command", flag.name);
+    return raw[i] == null ? -1 : i;
+  }
+
+  /**
+   * Checks whether a flag was given.
+   *
+   * @param flag The flag.
+   *
+   * @return True if the flag was given.
+   * @since 0.2.0-m1.10.2
+   */
+  public boolean has(CommandFlag flag) {
+    int i = spec.index(flag);
+    return i >= 0 && raw[i] != null;
+  }
+
+  /**
+   * Checks whether a switch was given.
+   *
+   * @param s The switch.
+   *
+   * @return True if the switch was given.
+   * @since 0.2.0-m1.10.2
+   */
+  public boolean has(CommandSwitch s) {
+    return switches.contains(s);
+  }
 
+  /**
+   * Gets the value of a flag as it was given, whatever its type.
+   *
+   * @param flag The flag.
+   *
+   * @return The value, or null if the flag was not given.
+   * @throws IllegalArgumentException If the flag is not part of the command.
+   * @since 0.2.0-m1.10.2
+   */
+  @Nullable
+  public String getString(CommandFlag flag) throws IllegalArgumentException {
+    int i = index(flag, true, "");
+    return i < 0 ? null : raw[i];
+  }
+
+  /**
+   * Gets the value of an {@link ArgumentType#INT} flag.
+   *
+   * @param flag The flag.
+   * @param def  The value to return if the flag was not given.
+   *
+   * @return The value.
+   * @throws IllegalArgumentException If the flag is of another type or not part of the command.
+   * @since 0.2.0-m1.10.2
+   */
+  public int getInt(CommandFlag flag, int def) throws IllegalArgumentException {
+    int i = index(flag, flag.type == ArgumentType.INT, "an int flag");
+    return i < 0 ? def : (int) numbers[i];
+  }
+
+  /**
+   * Gets the value of an {@link ArgumentType#INT}, {@link ArgumentType#LONG} or
+   * {@link ArgumentType#DURATION} flag, durations being in milliseconds.
+   *
+   * @param flag The flag.
+   * @param def  The value to return if the flag was not given.
+   *
+   * @return The value.
+   * @throws IllegalArgumentException If the flag is of another type or not part of the command.
+   * @since 0.2.0-m1.10.2
+   */
+  public long getLong(CommandFlag flag, long def) throws IllegalArgumentException {
+    int i = index(flag, flag.type.kind() == ArgumentType.Kind.LONG, "an integer flag");
+    return i < 0 ? def : numbers[i];
+  }
+
+  /**
+   * Gets the value of a {@link ArgumentType#DOUBLE} flag, or of an integer flag as a
+   * <code>double</code>.
+   *
+   * @param flag The flag.
+   * @param def  The value to return if the flag was not given.
+   *
+   * @return The value.
+   * @throws IllegalArgumentException If the flag is of another type or not part of the command.
+   * @since 0.2.0-m1.10.2
+   */
+  public double getDouble(CommandFlag flag, double def) throws IllegalArgumentException {
+    ArgumentType.Kind kind = flag.type.kind();
+    int i = index(flag, kind == ArgumentType.Kind.DOUBLE || kind == ArgumentType.Kind.LONG, "a numeric flag");
+    if (i < 0) return def;
+    return kind == ArgumentType.Kind.DOUBLE ? Double.longBitsToDouble(numbers[i]) : numbers[i];
+  }
+
+  /**
+   * Gets the value of a {@link ArgumentType#DURATION} flag.
+   *
+   * @param flag The flag.
+   * @param unit The unit to return the duration in, truncating any remainder.
+   * @param def  The value to return if the flag was not given, in the given unit.
+   *
+   * @return The duration.
+   * @throws IllegalArgumentException If the flag is of another type or not part of the command.
+   * @since 0.2.0-m1.10.2
+   */
+  public long getDuration(CommandFlag flag, TimeUnit unit, long def) throws IllegalArgumentException {
+    int i = index(flag, flag.type == ArgumentType.DURATION, "a duration flag");
+    return i < 0 ? def : unit.convert(numbers[i], TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Gets the value of a flag of an {@link ArgumentType#enumOf(Class) enum type}.
+   *
+   * @param flag The flag.
+   * @param type The enum class.
+   * @param <E>  The enum type.
+   *
+   * @return The value, or null if the flag was not given.
+   * @throws IllegalArgumentException If the flag is of another type or not part of the command.
+   * @since 0.2.0-m1.10.2
+   */
+  @Nullable
+  public <E extends Enum<E>> E getEnum(CommandFlag flag, Class<E> type) throws IllegalArgumentException {
+    int i = index(flag, flag.type.kind() == ArgumentType.Kind.OBJECT, "an enum flag");
+    if (i < 0) return null;
+    Validate.isTrue(type.isInstance(values[i]), "Flag %s is not of type %s", flag.name, type.getSimpleName());
+    return type.cast(values[i]);
+  }
+
+  /**
+   * Gets the value of a {@link ArgumentType#UUID} flag.
+   *
+   * @param flag The flag.
+   *
+   * @return The value, or null if the flag was not given.
+   * @throws IllegalArgumentException If the flag is of another type or not part of the command.
+   * @since 0.2.0-m1.10.2
+   */
+  @Nullable
+  public UUID getUUID(CommandFlag flag) throws IllegalArgumentException {
+    int i = index(flag, flag.type == ArgumentType.UUID, "a UUID flag");
+    return i < 0 ? null : (UUID) values[i];
+  }
+
+  /**
+   * Gets the value of a {@link ArgumentType#PLAYER} flag: the player, looked up by the name or
+   * UUID given. This reads the server's players, so it must be called on the main thread; an
+   * {@link io.vevox.vx.lib.cmd.AsyncCommandDelegator asynchronous command} should get back to it
+   * through the scheduler first.
+   *
+   * @param flag The flag.
+   *
+   * @return The player, or null if the flag was not given.
+   * @throws IllegalArgumentException If the flag is of another type or not part of the command.
+   * @throws IllegalStateException    If called off the main thread.
+   * @throws CommandException         If the player is not online.
+   * @since 0.2.0-m1.10.2
+   */
+  @Nullable
+  public Player getPlayer(CommandFlag flag)
+      throws IllegalArgumentException, IllegalStateException, CommandException {
+    int i = index(flag, flag.type == ArgumentType.PLAYER, "a player flag");
+    if (i < 0) return null;
+    if (!Bukkit.isPrimaryThread())
+      throw new IllegalStateException("Players can only be looked up on the main thread");
+    try {
+      return ArgumentType.PLAYER.convert(raw[i]);
+    } catch (IllegalArgumentException e) {
+      throw new CommandException("Invalid value for flag " + flag.name + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Gets the value of a flag of the given type, boxing numbers. Players are read with
+   * {@link #getPlayer(CommandFlag)} instead.
+   *
+   * @param flag The flag.
+   * @param type The type of the flag.
+   * @param <T>  The type of the value.
+   *
+   * @return The value, or null if the flag was not given.
+   * @throws IllegalArgumentException If the flag is of another type, a player flag or not part of
+   *                                  the command.
+   * @since 0.2.0-m1.10.2
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public <T> T get(CommandFlag flag, ArgumentType<T> type) throws IllegalArgumentException {
+    Validate.isTrue(type != ArgumentType.PLAYER, "Flag %s is a player flag, read with getPlayer", flag.name);
+    int i = index(flag, flag.type == type, "of type " + type.description());
+    if (i < 0) return null;
+    switch (type.kind()) {
+      case LONG:
+        if (type == ArgumentType.INT) return (T) Integer.valueOf((int) numbers[i]);
+        return (T) Long.valueOf(numbers[i]);
+      case DOUBLE:
+        return (T) Double.valueOf(Double.longBitsToDouble(numbers[i]));
+      case STRING:
+        return (T) raw[i];
+      default:
+        return (T) values[i];
+    }
+  }
 
 }
@@ -0,0 +1,205 @@
+package io.vevox.vx.lib.cmd;
+
+import io.vevox.vx.lib.cmd.arg.CommandFlag;
+import io.vevox.vx.lib.cmd.arg.CommandSwitch;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * The immutable set of {@link CommandFlag}s and {@link CommandSwitch}es of a {@link vxCommand},
+ * compiled by {@link vxCommand#freeze()} once registration is done.
+ * <p>
+ * Options are looked up by short name through a table indexed by the character itself, and by
+ * name through a {@link PrefixTrie}, which also resolves unambiguous abbreviations of names. Either
+ * way, resolving a token while parsing takes time independent of how many options are registered.
+ * A spec is safe to read from any thread.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class CommandSpec {
+
+  private static final int SHORT_NAMES = 128;
+
+  private final List<CommandFlag> flags;
+  private final List<CommandSwitch> switches;
+
+  private final Object[] shortNames = new Object[SHORT_NAMES];
+  private final PrefixTrie<Object> names = new PrefixTrie<>();
+  private final Map<CommandFlag, Integer> indices = new HashMap<>();
+
+  /**
+   * Compiles a spec. Names and short names are expected to have been checked for conflicts on
+   * registration.
+   *
+   * @param flags    The flags.
+   * @param switches The switches.
+   */
+  CommandSpec(Collection<CommandFlag> flags, Collection<CommandSwitch> switches) {
+    this.flags = Collections.unmodifiableList(new ArrayList<>(flags));
+    this.switches = Collections.unmodifiableList(new ArrayList<>(switches));
+
+    for (CommandFlag flag : this.flags) {
+      indices.put(flag, indices.size());
+      add(flag.name, flag.shortName, flag);
+    }
+    for (CommandSwitch s : switches) add(s.name, s.shortName, s);
+  }
+
+  private void add(String name, char shortName, Object option) {
+    if (shortName < SHORT_NAMES && CommandDelegator.isAlphanumeric(shortName, true, false))
+      shortNames[shortName] = option;
+    names.put(name, option);
+  }
+
+  /**
+   * Gets the flag or switch with the given short name.
+   *
+   * @param c The short name.
+   *
+   * @return The {@link CommandFlag} or {@link CommandSwitch}, or null if there is none.
+   */
+  @Nullable
+  Object option(char c) {
+    return c < SHORT_NAMES ? shortNames[c] : null;
+  }
+
+  /**
+   * Gets the position of a flag in {@link #flags()}, which is where its value is kept in
+   * {@link CommandOptions}.
+   *
+   * @param flag The flag.
+   *
+   * @return The index, or -1 if the flag is not part of this spec.
+   */
+  int index(CommandFlag flag) {
+    Integer index = indices.get(flag);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Gets the flag or switch with the given name.
+   *
+   * @param name The name.
+   *
+   * @return The {@link CommandFlag} or {@link CommandSwitch}, or null if there is none.
+   */
+  @Nullable
+  Object option(String name) {
+    return names.get(name, 0, name.length());
+  }
+
+  /**
+   * Gets the flag or switch with the given name, or, if there is none, the only one whose name
+   * starts with it.
+   *
+   * @param str  The string containing the name or abbreviation.
+   * @param from The index of the first character.
+   * @param to   The index just past the last character.
+   *
+   * @return The {@link CommandFlag} or {@link CommandSwitch}, or null if none or more than one
+   * match.
+   */
+  @Nullable
+  Object resolve(CharSequence str, int from, int to) {
+    return names.resolve(str, from, to);
+  }
+
+  /**
+   * Counts the flags and switches whose names start with a prefix.
+   *
+   * @param str  The string containing the prefix.
+   * @param from The index of the first character.
+   * @param to   The index just past the last character.
+   *
+   * @return The number of matching options.
+   */
+  int matches(CharSequence str, int from, int to) {
+    return names.count(str, from, to);
+  }
+
+  /**
+   * Lists the names of the flags and switches starting with a prefix, in lexicographic order.
+   *
+   * @param prefix The prefix.
+   * @param limit  The maximum number of names to list.
+   *
+   * @return The names.
+   */
+  public List<String> names(String prefix, int limit) {
+    return names.names(prefix, limit);
+  }
+
+  /**
+   * Gets the flag with the given short name.
+   *
+   * @param c The short name.
+   *
+   * @return The flag, or null if there is none.
+   */
+  @Nullable
+  public CommandFlag flag(char c) {
+    Object option = option(c);
+    return option instanceof CommandFlag ? (CommandFlag) option : null;
+  }
+
+  /**
+   * Gets the flag with the given name.
+   *
+   * @param name The name.
+   *
+   * @return The flag, or null if there is none.
+   */
+  @Nullable
+  public CommandFlag flag(String name) {
+    Object option = option(name);
+    return option instanceof CommandFlag ? (CommandFlag) option : null;
+  }
+
+  /**
+   * Gets the switch with the given short name.
+   *
+   * @param c The short name.
+   *
+   * @return The switch, or null if there is none.
+   */
+  @Nullable
+  public CommandSwitch commandSwitch(char c) {
+    Object option = option(c);
+    return option instanceof CommandSwitch ? (CommandSwitch) option : null;
+  }
+
+  /**
+   * Gets the switch with the given name.
+   *
+   * @param name The name.
+   *
+   * @return The switch, or null if there is none.
+   */
+  @Nullable
+  public CommandSwitch commandSwitch(String name) {
+    Object option = option(name);
+    return option instanceof CommandSwitch ? (CommandSwitch) option : null;
+  }
+
+  /**
+   * Gets all flags, in the order they were registered.
+   *
+   * @return An unmodifiable list of the flags.
+   */
+  public List<CommandFlag> flags() {
+    return flags;
+  }
+
+  /**
+   * Gets all switches, in the order they were registered.
+   *
+   * @return An unmodifiable list of the switches.
+   */
+  public List<CommandSwitch> switches() {
+    return switches;
+  }
+
+}
@@ -0,0 +1,164 @@
+package io.vevox.vx.lib.cmd;
+
+/**
+ * Scans command arguments for flags and their values in a single pass, without regular
+ * expressions.
+ * <p>
+ * A flag is a dash at the start of the arguments or after a space, followed by at least one
+ * character other than a space; two dashes make it a long flag. Dashes inside double quotes do not
+ * start flags, and a backslash escapes the character after it, so <code>\"</code> does not open or
+ * close a quote.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+final class CommandTokenizer {
+
+  private final String input;
+  private final int length;
+
+  private int pos;
+  private int start;
+  private int nameStart;
+  private int nameEnd;
+  private int end;
+
+  CommandTokenizer(String input) {
+    this.input = input;
+    this.length = input.length();
+  }
+
+  /**
+   * Advances to the next flag.
+   *
+   * @return False if there are no more flags.
+   */
+  boolean next() {
+    boolean quoted = false;
+    for (int i = pos; i < length; i++) {
+      char c = input.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == '"') {
+        quoted = !quoted;
+      } else if (c == '-' && !quoted && (i == 0 || input.charAt(i - 1) == ' ')
+          && i + 1 < length && input.charAt(i + 1) != ' ') {
+        start = i;
+        nameStart = i + 1 < length && input.charAt(i + 1) == '-' ? i + 2 : i + 1;
+        nameEnd = -1;
+        for (end = nameStart; end < length && (c = input.charAt(end)) != ' '; end++)
+          if (c == '=' && nameEnd < 0) nameEnd = end;
+        if (nameEnd < 0) nameEnd = end;
+        pos = end;
+        return true;
+      }
+    }
+    pos = length;
+    return false;
+  }
+
+  /**
+   * Gets the index of the leading dash of the current flag.
+   *
+   * @return The index.
+   */
+  int start() {
+    return start;
+  }
+
+  /**
+   * Gets the index of the first character of the current flag after its dashes.
+   *
+   * @return The index.
+   */
+  int nameStart() {
+    return nameStart;
+  }
+
+  /**
+   * Gets the index just past the name of the current flag: that of the first <code>=</code> in it,
+   * or {@link #end()} if there is none.
+   *
+   * @return The index.
+   */
+  int nameEnd() {
+    return nameEnd;
+  }
+
+  /**
+   * Gets the index just past the current flag.
+   *
+   * @return The index.
+   */
+  int end() {
+    return end;
+  }
+
+  /**
+   * Checks whether the current flag is a long flag, starting with two dashes.
+   *
+   * @return True for a long flag.
+   */
+  boolean isLong() {
+    return nameStart - start == 2;
+  }
+
+  /**
+   * Reads the value following the current flag and moves past it. A value in double quotes may
+   * contain spaces and dashes, and has <code>\"</code> and <code>\\</code> unescaped; a quote that
+   * is never closed runs to the end of the arguments.
+   *
+   * @param numeric Whether the value is a number, which may be negative: a dash followed by a
+   *                digit is then read as the value rather than as the next flag.
+   *
+   * @return The value, or null if it is missing or is itself a flag.
+   */
+  String value(boolean numeric) {
+    int i = pos;
+    while (i < length && input.charAt(i) == ' ') i++;
+    if (i >= length) return null;
+    if (input.charAt(i) == '-'
+        && !(numeric && i + 1 < length && input.charAt(i + 1) >= '0' && input.charAt(i + 1) <= '9'))
+      return null;
+    return read(i);
+  }
+
+  /**
+   * Reads a value attached to the current flag, as in <code>--name=value</code>, and moves past
+   * it. The value is read as by {@link #value(boolean)}, but may be empty or start with a dash.
+   *
+   * @param from The index of the first character of the value, after the <code>=</code>.
+   *
+   * @return The value.
+   */
+  String inlineValue(int from) {
+    return read(from);
+  }
+
+  private String read(int i) {
+    if (i >= length || input.charAt(i) != '"') {
+      int stop = input.indexOf(' ', i);
+      if (stop < 0) stop = length;
+      pos = stop;
+      return input.substring(i, stop);
+    }
+
+    int from = ++i;
+    StringBuilder unescaped = null;
+    for (; i < length; i++) {
+      char c = input.charAt(i);
+      if (c == '"') {
+        pos = i + 1;
+        return unescaped == null ? input.substring(from, i) : unescaped.append(input, from, i).toString();
+      }
+      if (c == '\\' && i + 1 < length && (input.charAt(i + 1) == '"' || input.charAt(i + 1) == '\\')) {
+        if (unescaped == null) unescaped = new StringBuilder(length - from);
+        unescaped.append(input, from, i);
+        from = ++i;
+      }
+    }
+    pos = length;
+    return unescaped == null ? input.substring(from) : unescaped.append(input, from, length).toString();
+  }
+
+}
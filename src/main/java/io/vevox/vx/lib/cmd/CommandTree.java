@@ -0,0 +1,117 @@
+package io.vevox.vx.lib.cmd;
+
+import org.apache.commons.lang3.Validate;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link CommandDelegator} routing a command through a tree of {@link CommandNode}s.
+ * <p>
+ * Each argument naming a subcommand of the current node moves down to it, checking its permission
+ * along the way; the remaining arguments are parsed with the flags and switches of the node
+ * reached and handed to its handler. Routing takes one hash lookup per level of the tree. The tree
+ * also completes subcommand names, and hands completion of the remaining arguments to the
+ * {@link CommandNode#completer(CommandCompleter) completer} of the node reached.
+ * <p>
+ * The tree is {@link #freeze() frozen} when {@link #install(JavaPlugin, String) installed}, or
+ * otherwise on first use, and is safe to use from any thread afterwards.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class CommandTree implements CommandDelegator, TabCompleter {
+
+  /**
+   * The node of the command itself.
+   */
+  public final CommandNode root;
+
+  /**
+   * Creates a new command tree.
+   *
+   * @param root The node of the command itself.
+   *
+   * @throws IllegalArgumentException If the root is null.
+   */
+  public CommandTree(CommandNode root) throws IllegalArgumentException {
+    Validate.notNull(root);
+    this.root = root;
+  }
+
+  /**
+   * Freezes every node of this tree.
+   *
+   * @return This tree.
+   * @see CommandNode#freeze()
+   */
+  public CommandTree freeze() {
+    root.freeze();
+    return this;
+  }
+
+  /**
+   * Freezes this tree and sets it as the executor and tab completer of a plugin's command.
+   *
+   * @param plugin  The plugin.
+   * @param command The name of the command, as in the plugin's description.
+   *
+   * @return This tree.
+   * @throws IllegalArgumentException If the plugin has no such command.
+   */
+  public CommandTree install(JavaPlugin plugin, String command) throws IllegalArgumentException {
+    PluginCommand cmd = plugin.getCommand(command);
+    Validate.notNull(cmd, "Unknown command: %s", command);
+    freeze();
+    cmd.setExecutor(this);
+    cmd.setTabCompleter(this);
+    return this;
+  }
+
+  @Override
+  public void command(CommandSender sender, Command cmd, String... args) throws CommandException {
+    CommandNode node = root.freeze();
+    if (!node.permits(sender)) throw new CommandException.InsufficientPermissionsException(node.permission);
+
+    int i = 0;
+    for (CommandNode child; i < args.length && (child = node.child(args[i])) != null; i++) {
+      if (!child.permits(sender)) throw new CommandException.InsufficientPermissionsException(child.permission);
+      node = child;
+    }
+
+    CommandNode.Handler handler = node.handler();
+    if (handler == null) {
+      if (i < args.length) throw new CommandException.UnknownArgumentException(i, args[i]);
+      throw new CommandException.MissingArgumentException(i);
+    }
+    handler.execute(sender, node.options.parse(Arrays.copyOfRange(args, i, args.length)));
+  }
+
+  @Override
+  public List<String> onTabComplete(CommandSender sender, Command cmd, String alias, String[] args) {
+    CommandNode node = root.freeze();
+    if (args.length == 0 || !node.permits(sender)) return Collections.emptyList();
+
+    int i = 0;
+    for (CommandNode child; i < args.length - 1 && (child = node.child(args[i])) != null; i++) {
+      if (!child.permits(sender)) return Collections.emptyList();
+      node = child;
+    }
+
+    List<String> completions = new ArrayList<>();
+    if (i == args.length - 1) completions.addAll(node.complete(sender, args[i], CommandCompleter.MAX_COMPLETIONS));
+    CommandCompleter completer = node.completer();
+    if (completer != null)
+      completions.addAll(completer.onTabComplete(sender, cmd, alias, Arrays.copyOfRange(args, i, args.length)));
+    return completions;
+  }
+
+}
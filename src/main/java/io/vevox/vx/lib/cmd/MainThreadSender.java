@@ -0,0 +1,76 @@
+package io.vevox.vx.lib.cmd;
+
+import org.bukkit.command.CommandSender;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Wraps a {@link CommandSender} for use off the main thread. Every method sending something to the
+ * sender, that is every <code>void</code> method whose name starts with <code>send</code>, such as
+ * <code>sendMessage</code>, <code>sendRawMessage</code> or <code>sendTitle</code>, is called on
+ * the main thread, in order. <code>spigot()</code> returns an object the wrapper cannot intercept,
+ * so it is refused with an {@link IllegalStateException}. Every other method is called directly,
+ * on the calling thread, and is only safe to use for reading state that may be read from any
+ * thread, such as the name or permissions of the sender.
+ * <p>
+ * The wrapper implements the same interfaces as the sender, so it can still be cast to, for
+ * example, a player.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+final class MainThreadSender {
+
+  private MainThreadSender() { }
+
+  /**
+   * Wraps a sender.
+   *
+   * @param sender   The sender.
+   * @param commands The executor whose plugin schedules the messages.
+   *
+   * @return The wrapper.
+   */
+  static CommandSender wrap(CommandSender sender, AsyncCommands commands) {
+    Set<Class<?>> interfaces = new LinkedHashSet<>();
+    for (Class<?> c = sender.getClass(); c != null; c = c.getSuperclass())
+      Collections.addAll(interfaces, c.getInterfaces());
+
+    try {
+      return (CommandSender) Proxy.newProxyInstance(sender.getClass().getClassLoader(),
+          interfaces.toArray(new Class<?>[interfaces.size()]), (proxy, method, args) -> invoke(sender, commands, method, args));
+    } catch (IllegalArgumentException e) {
+      // Some interface is not visible to the sender's class loader
+      return (CommandSender) Proxy.newProxyInstance(CommandSender.class.getClassLoader(),
+          new Class<?>[]{ CommandSender.class }, (proxy, method, args) -> invoke(sender, commands, method, args));
+    }
+  }
+
+  private static Object invoke(CommandSender sender, AsyncCommands commands, Method method, Object[] args)
+      throws Throwable {
+    String name = method.getName();
+    if (name.startsWith("send") && method.getReturnType() == void.class) {
+      commands.onMain(() -> {
+        try {
+          method.invoke(sender, args);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      return null;
+    }
+    if (name.equals("spigot") && method.getParameterCount() == 0)
+      throw new IllegalStateException("spigot() cannot be used off the main thread");
+    try {
+      return method.invoke(sender, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+}
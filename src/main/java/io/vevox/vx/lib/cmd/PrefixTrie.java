@@ -0,0 +1,182 @@
+package io.vevox.vx.lib.cmd;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A trie of names supporting exact lookup, unique-prefix lookup and listing by prefix. Each node
+ * keeps its children in a sorted array and counts the names below it, so every lookup costs time
+ * proportional to the length of the name looked up rather than the number of names stored.
+ * <p>
+ * Not safe for concurrent modification; tries are filled once and then only read.
+ *
+ * @param <T> The type of value stored with each name.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+final class PrefixTrie<T> {
+
+  private static final char[] NO_CHARS = new char[0];
+  private static final Node[] NO_NODES = new Node[0];
+
+  private static final class Node {
+
+    private char[] chars = NO_CHARS;
+    private Node[] children = NO_NODES;
+    private Object value;
+    private int count;
+
+    private Node child(char c) {
+      int i = Arrays.binarySearch(chars, c);
+      return i < 0 ? null : children[i];
+    }
+
+    private Node addChild(char c) {
+      int i = Arrays.binarySearch(chars, c);
+      if (i >= 0) return children[i];
+      i = -i - 1;
+
+      char[] newChars = new char[chars.length + 1];
+      Node[] newChildren = new Node[children.length + 1];
+      System.arraycopy(chars, 0, newChars, 0, i);
+      System.arraycopy(children, 0, newChildren, 0, i);
+      System.arraycopy(chars, i, newChars, i + 1, chars.length - i);
+      System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+      newChars[i] = c;
+      Node child = newChildren[i] = new Node();
+      chars = newChars;
+      children = newChildren;
+      return child;
+    }
+
+  }
+
+  private final Node root = new Node();
+
+  /**
+   * Stores a value under a name, replacing any value already stored under it.
+   *
+   * @param name  The name.
+   * @param value The value.
+   */
+  void put(String name, T value) {
+    boolean added = get(name, 0, name.length()) == null;
+    Node node = root;
+    if (added) node.count++;
+    for (int i = 0; i < name.length(); i++) {
+      node = node.addChild(name.charAt(i));
+      if (added) node.count++;
+    }
+    node.value = value;
+  }
+
+  private Node find(CharSequence str, int from, int to) {
+    Node node = root;
+    for (int i = from; i < to && node != null; i++) node = node.child(str.charAt(i));
+    return node;
+  }
+
+  /**
+   * Gets the value stored under exactly the given name.
+   *
+   * @param str  The string containing the name.
+   * @param from The index of the first character of the name.
+   * @param to   The index just past the name.
+   *
+   * @return The value, or null if there is none.
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  T get(CharSequence str, int from, int to) {
+    Node node = find(str, from, to);
+    return node == null ? null : (T) node.value;
+  }
+
+  /**
+   * Gets the value stored under the given name, or, if there is none, under the only name
+   * starting with it.
+   *
+   * @param str  The string containing the name or prefix.
+   * @param from The index of the first character.
+   * @param to   The index just past the last character.
+   *
+   * @return The value, or null if no name or more than one name starts with the prefix.
+   * @see #count(CharSequence, int, int)
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  T resolve(CharSequence str, int from, int to) {
+    Node node = find(str, from, to);
+    if (node == null) return null;
+    while (node.value == null && node.count == 1) node = node.children[0];
+    return (T) node.value;
+  }
+
+  /**
+   * Counts the names starting with a prefix, including the prefix itself.
+   *
+   * @param str  The string containing the prefix.
+   * @param from The index of the first character.
+   * @param to   The index just past the last character.
+   *
+   * @return The number of names.
+   */
+  int count(CharSequence str, int from, int to) {
+    Node node = find(str, from, to);
+    return node == null ? 0 : node.count;
+  }
+
+  /**
+   * Lists the names starting with a prefix, in lexicographic order.
+   *
+   * @param prefix The prefix.
+   * @param limit  The maximum number of names to list.
+   *
+   * @return The names.
+   */
+  List<String> names(String prefix, int limit) {
+    List<String> names = new ArrayList<>(Math.min(limit, 16));
+    Node node = find(prefix, 0, prefix.length());
+    if (node != null && limit > 0) collect(node, new StringBuilder(prefix), names, limit);
+    return names;
+  }
+
+  /**
+   * Lists the values stored under names starting with a prefix, in lexicographic order of their
+   * names.
+   *
+   * @param prefix The prefix.
+   * @param limit  The maximum number of values to list.
+   *
+   * @return The values.
+   */
+  List<T> values(String prefix, int limit) {
+    List<T> values = new ArrayList<>(Math.min(limit, 16));
+    Node node = find(prefix, 0, prefix.length());
+    if (node != null && limit > 0) collect(node, null, values, limit);
+    return values;
+  }
+
+  /**
+   * Checks whether no names are stored.
+   *
+   * @return True if the trie is empty.
+   */
+  boolean isEmpty() {
+    return root.count == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void collect(Node node, @Nullable StringBuilder name, List<?> out, int limit) {
+    if (node.value != null) ((List<Object>) out).add(name == null ? node.value : name.toString());
+    for (int i = 0; i < node.chars.length && out.size() < limit; i++) {
+      if (name != null) name.append(node.chars[i]);
+      collect(node.children[i], name, out, limit);
+      if (name != null) name.setLength(name.length() - 1);
+    }
+  }
+
+}
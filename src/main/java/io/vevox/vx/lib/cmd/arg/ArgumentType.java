@@ -0,0 +1,314 @@
+package io.vevox.vx.lib.cmd.arg;
+
+import org.apache.commons.lang3.Validate;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * The type of the value a {@link CommandFlag} takes, converting it from the text of the command
+ * once, when the command is parsed. Numeric types are converted to primitives and kept unboxed,
+ * and read back through the typed accessors of {@link io.vevox.vx.lib.cmd.CommandOptions}.
+ * <p>
+ * Conversions throw an {@link IllegalArgumentException} with a message fit to show the sender,
+ * such as <code>"expected an integer"</code>.
+ *
+ * @param <T> The type of the converted value.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class ArgumentType<T> {
+
+  /**
+   * How a converted value is stored.
+   */
+  public enum Kind {
+
+    /**
+     * As the text itself.
+     */
+    STRING,
+
+    /**
+     * As a <code>long</code>.
+     */
+    LONG,
+
+    /**
+     * As a <code>double</code>.
+     */
+    DOUBLE,
+
+    /**
+     * As an object.
+     */
+    OBJECT
+
+  }
+
+  /**
+   * The text, unconverted. This is the type of flags not given one.
+   */
+  public static final ArgumentType<String> STRING =
+      new ArgumentType<>("text", Kind.STRING, null, null, s -> s);
+
+  /**
+   * A 32-bit integer.
+   */
+  public static final ArgumentType<Integer> INT = new ArgumentType<>("an integer", Kind.LONG, Integer::parseInt, null, null);
+
+  /**
+   * A 64-bit integer.
+   */
+  public static final ArgumentType<Long> LONG = new ArgumentType<>("an integer", Kind.LONG, Long::parseLong, null, null);
+
+  /**
+   * A floating-point number.
+   */
+  public static final ArgumentType<Double> DOUBLE = new ArgumentType<>("a number", Kind.DOUBLE, null, s -> {
+    double value = Double.parseDouble(s);
+    if (Double.isNaN(value) || Double.isInfinite(value)) throw new NumberFormatException();
+    return value;
+  }, null);
+
+  /**
+   * A duration such as <code>6s</code>, <code>1m30s</code> or <code>250ms</code>, in
+   * milliseconds. The units are <code>ms</code>, <code>s</code>, <code>m</code>, <code>h</code>,
+   * <code>d</code> and <code>w</code>; a number without a unit is in seconds.
+   */
+  public static final ArgumentType<Long> DURATION =
+      new ArgumentType<>("a duration, like 1m30s", Kind.LONG, ArgumentType::parseDuration, null, null);
+
+  /**
+   * A {@link UUID}.
+   */
+  public static final ArgumentType<UUID> UUID = new ArgumentType<>("a UUID", Kind.OBJECT, null, null, s -> {
+    try {
+      return java.util.UUID.fromString(s);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException();
+    }
+  });
+
+  /**
+   * An online player, by name or UUID. As commands may be parsed off the main thread, where the
+   * server's players cannot be read safely, the value is kept as {@link Kind#STRING text} and only
+   * looked up when {@link io.vevox.vx.lib.cmd.CommandOptions#getPlayer read}, which must be done on
+   * the main thread, as must converting a value directly.
+   */
+  public static final ArgumentType<Player> PLAYER = new ArgumentType<>("an online player", Kind.STRING, null, null, s -> {
+    Player player = Bukkit.getPlayerExact(s);
+    if (player == null && s.length() == 36) {
+      try {
+        player = Bukkit.getPlayer(java.util.UUID.fromString(s));
+      } catch (IllegalArgumentException e) {
+        // Not a UUID after all
+      }
+    }
+    if (player == null) throw new IllegalArgumentException("player " + s + " is not online");
+    return player;
+  });
+
+  private final String description;
+  private final Kind kind;
+  private final ToLongFunction<String> toLong;
+  private final ToDoubleFunction<String> toDouble;
+  private final Function<String, ? extends T> toObject;
+
+  private ArgumentType(String description, Kind kind, ToLongFunction<String> toLong,
+                       ToDoubleFunction<String> toDouble, Function<String, ? extends T> toObject) {
+    this.description = description;
+    this.kind = kind;
+    this.toLong = toLong;
+    this.toDouble = toDouble;
+    this.toObject = toObject;
+  }
+
+  /**
+   * Creates a type for the constants of an enum, matched by name ignoring case and with dashes
+   * standing for underscores.
+   *
+   * @param type The enum class.
+   * @param <E>  The enum type.
+   *
+   * @return The type.
+   * @throws IllegalArgumentException If the class is null.
+   */
+  public static <E extends Enum<E>> ArgumentType<E> enumOf(Class<E> type) throws IllegalArgumentException {
+    Validate.notNull(type);
+    E[] constants = type.getEnumConstants();
+    StringBuilder names = new StringBuilder("one of ");
+    for (int i = 0; i < constants.length; i++) {
+      if (i > 0) names.append(", ");
+      names.append(constants[i].name().toLowerCase(Locale.ROOT).replace('_', '-'));
+    }
+    String description = names.toString();
+
+    return new ArgumentType<>(description, Kind.OBJECT, null, null, s -> {
+      String name = s.replace('-', '_');
+      for (E constant : constants)
+        if (constant.name().equalsIgnoreCase(name)) return constant;
+      throw new IllegalArgumentException("expected " + description);
+    });
+  }
+
+  /**
+   * Creates a type converted by a function.
+   *
+   * @param description What the value should be, such as <code>"a world name"</code>, used when
+   *                    the function fails without an {@link IllegalArgumentException}.
+   * @param converter   The function.
+   * @param <T>         The type of the converted value.
+   *
+   * @return The type.
+   * @throws IllegalArgumentException If the description or function is null.
+   */
+  public static <T> ArgumentType<T> of(String description, Function<String, ? extends T> converter)
+      throws IllegalArgumentException {
+    Validate.notNull(description);
+    Validate.notNull(converter);
+    return new ArgumentType<>(description, Kind.OBJECT, null, null, converter);
+  }
+
+  private static long parseDuration(String s) {
+    long millis = 0;
+    int i = 0;
+    int len = s.length();
+    if (len == 0) throw new NumberFormatException();
+    while (i < len) {
+      int start = i;
+      while (i < len && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+      if (i == start) throw new NumberFormatException();
+      long amount = Long.parseLong(s.substring(start, i));
+
+      int unitStart = i;
+      while (i < len && (s.charAt(i) < '0' || s.charAt(i) > '9')) i++;
+      TimeUnit unit;
+      switch (s.substring(unitStart, i).toLowerCase(Locale.ROOT)) {
+        case "ms":
+          unit = TimeUnit.MILLISECONDS;
+          break;
+        case "":
+          if (start != 0) throw new NumberFormatException();
+          // fall through: a bare number is in seconds
+        case "s":
+          unit = TimeUnit.SECONDS;
+          break;
+        case "m":
+          unit = TimeUnit.MINUTES;
+          break;
+        case "h":
+          unit = TimeUnit.HOURS;
+          break;
+        case "d":
+          unit = TimeUnit.DAYS;
+          break;
+        case "w":
+          unit = TimeUnit.DAYS;
+          amount *= 7;
+          break;
+        default:
+          throw new NumberFormatException();
+      }
+      millis += unit.toMillis(amount);
+    }
+    return millis;
+  }
+
+  /**
+   * Gets a description of what values of this type look like.
+   *
+   * @return The description, such as <code>"an integer"</code>.
+   */
+  public String description() {
+    return description;
+  }
+
+  /**
+   * Gets how values of this type are stored once converted.
+   *
+   * @return The kind.
+   */
+  public Kind kind() {
+    return kind;
+  }
+
+  /**
+   * Checks whether values of this type are numbers, stored as a {@link Kind#LONG} or
+   * {@link Kind#DOUBLE}. The value of a numeric flag may start with a dash, as in
+   * <code>-n -5</code>, without being taken for the next flag.
+   *
+   * @return True for a numeric type.
+   */
+  public boolean isNumeric() {
+    return kind == Kind.LONG || kind == Kind.DOUBLE;
+  }
+
+  /**
+   * Converts a value of a {@link Kind#LONG} type.
+   *
+   * @param value The text.
+   *
+   * @return The value.
+   * @throws IllegalArgumentException If the text is not a valid value.
+   * @throws IllegalStateException    If this type is not stored as a <code>long</code>.
+   */
+  public long toLong(String value) throws IllegalArgumentException, IllegalStateException {
+    if (kind != Kind.LONG) throw new IllegalStateException("Not an integer type");
+    try {
+      return toLong.applyAsLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("expected " + description);
+    }
+  }
+
+  /**
+   * Converts a value of a {@link Kind#DOUBLE} type.
+   *
+   * @param value The text.
+   *
+   * @return The value.
+   * @throws IllegalArgumentException If the text is not a valid value.
+   * @throws IllegalStateException    If this type is not stored as a <code>double</code>.
+   */
+  public double toDouble(String value) throws IllegalArgumentException, IllegalStateException {
+    if (kind != Kind.DOUBLE) throw new IllegalStateException("Not a floating-point type");
+    try {
+      return toDouble.applyAsDouble(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("expected " + description);
+    }
+  }
+
+  /**
+   * Converts a value of a {@link Kind#STRING} or {@link Kind#OBJECT} type.
+   *
+   * @param value The text.
+   *
+   * @return The value.
+   * @throws IllegalArgumentException If the text is not a valid value.
+   * @throws IllegalStateException    If this type is stored as a primitive.
+   */
+  public T convert(String value) throws IllegalArgumentException, IllegalStateException {
+    if (toObject == null) throw new IllegalStateException("Primitive type");
+    try {
+      T converted = toObject.apply(value);
+      if (converted == null) throw new IllegalArgumentException("expected " + description);
+      return converted;
+    } catch (IllegalArgumentException e) {
+      throw e.getMessage() == null || e instanceof NumberFormatException
+          ? new IllegalArgumentException("expected " + description) : e;
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("expected " + description);
+    }
+  }
+
+}
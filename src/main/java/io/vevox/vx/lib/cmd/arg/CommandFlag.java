@@ -52,6 +52,13 @@ public abstract class CommandFlag {
    */
   public final Predicate<String> validator;
 
+  /**
+   * The type of the value of this flag, converted once when the command is parsed.
+   *
+   * @since 0.2.0-m1.10.2
+   */
+  public final ArgumentType<?> type;
+
   /**
    * Creates a new command flag with the given name and validator, using no short name.
    *
@@ -70,11 +77,41 @@ public abstract class CommandFlag {
    * @param validator The {@link #validator} of this flag.
    */
   public CommandFlag(@NotNull String name, char shortName, Predicate<String> validator) {
+    this(name, shortName, validator, ArgumentType.STRING);
+  }
+
+  /**
+   * Creates a new command flag with the given name, validator and type, using no short name.
+   *
+   * @param name      The {@link #name} of the command flag.
+   * @param validator The {@link #validator} to use.
+   * @param type      The {@link #type} of the value.
+   *
+   * @since 0.2.0-m1.10.2
+   */
+  public CommandFlag(@NotNull String name, Predicate<String> validator, @NotNull ArgumentType<?> type) {
+    this(name, (char) 0, validator, type);
+  }
+
+  /**
+   * Creates a new command flag with the given name, short name, validator and type.
+   *
+   * @param name      The {@link #name} of this flag.
+   * @param shortName The {@link #shortName} of this flag.
+   * @param validator The {@link #validator} of this flag.
+   * @param type      The {@link #type} of the value.
+   *
+   * @since 0.2.0-m1.10.2
+   */
+  public CommandFlag(@NotNull String name, char shortName, Predicate<String> validator,
+                     @NotNull ArgumentType<?> type) {
     if (!CommandDelegator.isValidCommandArg(name))
       throw new IllegalArgumentException("'" + name + "' is not valid command name");
+    if (type == null) throw new IllegalArgumentException("Flag type cannot be null");
     this.name = name;
     this.shortName = shortName;
     this.validator = validator;
+    this.type = type;
   }
 
   /**
@@ -96,4 +133,9 @@ public abstract class CommandFlag {
     return o instanceof CommandFlag && ((CommandFlag) o).name.equals(name);
   }
 
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
 }
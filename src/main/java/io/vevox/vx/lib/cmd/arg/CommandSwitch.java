@@ -66,4 +66,9 @@ public abstract class CommandSwitch {
     return o instanceof CommandSwitch && ((CommandSwitch) o).name.equals(name);
   }
 
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
 }
@@ -7,9 +7,8 @@ import org.apache.commons.lang.ArrayUtils;
 import org.bukkit.command.Command;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import javax.annotation.Nullable;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * @author Matthew Struble
@@ -17,34 +16,80 @@ import java.util.regex.Pattern;
 @SuppressWarnings("unused WeakerAccess")
 public abstract class vxCommand {
 
+  private static final int AMBIGUOUS_LISTED = 8;
+
   public final Command command;
 
   private final Set<CommandFlag> flags;
   private final Set<CommandSwitch> switches;
 
+  private volatile CommandSpec spec;
+
   public vxCommand(@NotNull JavaPlugin plugin, @NotNull String cmd) {
-    command = plugin.getCommand(cmd);
+    this(plugin.getCommand(cmd));
+  }
 
-    flags = new HashSet<>();
-    switches = new HashSet<>();
+  /**
+   * Creates a command not bound to a Bukkit command, holding only the flags and switches of, for
+   * example, a {@link CommandNode subcommand}.
+   *
+   * @since 0.2.0-m1.10.2
+   */
+  public vxCommand() {
+    this((Command) null);
   }
 
-  public vxCommand register(CommandFlag flag) throws IllegalArgumentException {
+  private vxCommand(@Nullable Command command) {
+    this.command = command;
+
+    flags = new LinkedHashSet<>();
+    switches = new LinkedHashSet<>();
+  }
+
+  public synchronized vxCommand register(CommandFlag flag) throws IllegalArgumentException, IllegalStateException {
+    if (spec != null) throw new IllegalStateException("Command is frozen");
     if (hasName(flag.name) || hasChar(flag.shortName))
       throw new IllegalArgumentException("Flag name or short name already in use.");
-    if (!flags.contains(flag))
-      flags.add(flag);
+    flags.add(flag);
     return this;
   }
 
-  public vxCommand register(CommandSwitch s) throws IllegalArgumentException {
+  public synchronized vxCommand register(CommandSwitch s) throws IllegalArgumentException, IllegalStateException {
+    if (spec != null) throw new IllegalStateException("Command is frozen");
     if (hasName(s.name) || hasChar(s.shortName))
       throw new IllegalArgumentException("Switch name or short name already in use.");
-    if (!switches.contains(s))
-      switches.add(s);
+    switches.add(s);
     return this;
   }
 
+  /**
+   * Compiles the registered flags and switches into a {@link CommandSpec}, used for all parsing
+   * from then on. Nothing more can be registered afterwards. This happens on the first
+   * {@link #parse(String) parse} if it has not been done before, but is best done once
+   * registration is complete, such as when the plugin is enabled.
+   *
+   * @return The spec.
+   * @since 0.2.0-m1.10.2
+   */
+  public CommandSpec freeze() {
+    CommandSpec spec = this.spec;
+    if (spec != null) return spec;
+    synchronized (this) {
+      if (this.spec == null) this.spec = new CommandSpec(flags, switches);
+      return this.spec;
+    }
+  }
+
+  /**
+   * Checks whether this command has been {@link #freeze() frozen}.
+   *
+   * @return True if nothing more can be registered.
+   * @since 0.2.0-m1.10.2
+   */
+  public boolean isFrozen() {
+    return spec != null;
+  }
+
   private boolean hasFlag(@NotNull String name) {
     return getFlag(name) != null;
   }
@@ -95,75 +140,80 @@ public abstract class vxCommand {
     return null;
   }
 
-  private String getStringFrom(@NotNull String args, int index)
-      throws CommandException.MissingArgumentException {
-    try {
-      String str = args.substring(index);
-      while (str.charAt(0) == ' ') str = str.substring(1);
-      if (str.charAt(0) == '-') throw new CommandException.MissingArgumentException(0);
-
-      if (str.charAt(0) == '"') {
-        Matcher m = Pattern.compile("(?<=[^\\\\])\"").matcher(str);
-        if (!m.find(1)) return str.substring(1);
-        return str.substring(1, m.start());
-      } else {
-        return str.split(" ")[0];
-      }
-
-    } catch (IndexOutOfBoundsException e) {
-      throw new CommandException.MissingArgumentException(0);
-    }
-  }
-
+  /**
+   * Parses command arguments into positional arguments, flags and switches. Positional arguments
+   * are those before the first flag, split on spaces.
+   * <p>
+   * Flags and switches are given by short name after a single dash; several switches may share
+   * one dash, as in <code>-rf</code>. They are given by name after two dashes, where any
+   * abbreviation matching only one name is accepted, so <code>--use-opt</code> resolves to
+   * <code>--use-optional-config</code> unless another name starts with it. A flag's argument
+   * follows it after a space, or for names, after <code>=</code>. The arguments are read in a single pass; see
+   * {@link CommandTokenizer} for how flags and quoted values are recognised.
+   *
+   * @param args The arguments, separated by spaces.
+   *
+   * @return The parsed options.
+   * @throws CommandException If a flag or switch is unknown, duplicated, or missing or failing
+   *                          validation or {@link CommandFlag#type conversion} of its argument.
+   */
   public CommandOptions parse(@NotNull String args) throws CommandException {
 
-    Map<CommandFlag, String> flags = new HashMap<>();
-    Set<CommandSwitch> switches = new HashSet<>();
-
-    // Regex is spooky but magical, thanks StackOverflow @jens
-    Pattern flagPattern =
-        Pattern.compile(" -([^ ]+)(?=(?:[^\"\\\\]*(?:\\\\.|\"(?:[^\"\\\\]*\\\\.)*[^\"\\\\]*\"))*[^\"]*$)");
-    Matcher m = flagPattern.matcher(args);
-
+    CommandSpec spec = freeze();
+    CommandOptions.Builder options = new CommandOptions.Builder(spec);
+    CommandTokenizer tokens = new CommandTokenizer(args);
     int flagStart = -1;
 
-    while (m.find()) {
+    while (tokens.next()) {
       if (flagStart < 0)
-        flagStart = m.start();
-
-      String str = m.group(1);
+        flagStart = tokens.start();
 
-      if (str.charAt(0) == '-') {
+      if (tokens.isLong()) {
         // Long-named flag
+        int end = tokens.end();
+        int nameEnd = tokens.nameEnd();
+        String name = args.substring(tokens.start(), nameEnd);
+        if (nameEnd == tokens.nameStart())
+          throw new CommandException("Missing name of flag or switch: " + args.substring(tokens.start(), end));
+
+        Object option = spec.resolve(args, tokens.nameStart(), nameEnd);
+        if (option == null) {
+          if (spec.matches(args, tokens.nameStart(), nameEnd) == 0)
+            throw new CommandException("Unknown flag or switch: " + name);
+          throw new CommandException("Ambiguous flag or switch " + name + ": could be --"
+              + String.join(", --", spec.names(name.substring(2), AMBIGUOUS_LISTED)));
+        }
 
-        // TODO
+        if (option instanceof CommandFlag) {
+          CommandFlag flag = (CommandFlag) option;
+          String arg = nameEnd < end ? tokens.inlineValue(nameEnd + 1) : tokens.value(flag.type.isNumeric());
+          if (arg == null) throw new CommandException("Flag --" + flag.name + " requires argument");
+          options.flag(flag, arg);
+        } else {
+          if (nameEnd < end)
+            throw new CommandException("Switch --" + ((CommandSwitch) option).name + " does not take an argument");
+          options.commandSwitch((CommandSwitch) option);
+        }
 
       } else {
         // Short-named flag
-        char[] chars;
-        if (str.length() > 1)
-          chars = str.toCharArray();
-        else chars = new char[]{ str.charAt(0) };
-
-        for (char c : chars) {
-          if (!hasChar(c)) throw new CommandException("Unknown flag or switch: " + c);
-          if (hasFlag(c)) {
-
-            if (chars.length > 1) throw new CommandException("Flag used as switch: " + c);
-            else try {
-              CommandFlag flag = getFlag(c);
-              String arg = getStringFrom(args, m.end());
-              if (flags.containsKey(flag)) throw new CommandException("Duplicate flag " + flag.name);
-              if (!flag.validator.test(arg)) throw new CommandException(flag.getValidationMessage());
-              flags.put(flag, arg);
-            } catch (CommandException.MissingArgumentException e) {
-              throw new CommandException("Flag " + c + " requires argument");
-            }
+        int end = tokens.end();
+        boolean cluster = end - tokens.nameStart() > 1;
+
+        for (int i = tokens.nameStart(); i < end; i++) {
+          char c = args.charAt(i);
+          Object option = spec.option(c);
+          if (option == null) throw new CommandException("Unknown flag or switch: " + c);
+          if (option instanceof CommandFlag) {
+
+            if (cluster) throw new CommandException("Flag used as switch: " + c);
+            CommandFlag flag = (CommandFlag) option;
+            String arg = tokens.value(flag.type.isNumeric());
+            if (arg == null) throw new CommandException("Flag " + c + " requires argument");
+            options.flag(flag, arg);
 
           } else {
-            // hasSwitch(c)
-            CommandSwitch s = getSwitch(c);
-            if (!switches.contains(s)) switches.add(s);
+            options.commandSwitch((CommandSwitch) option);
           }
 
         }
@@ -171,9 +221,7 @@ public abstract class vxCommand {
 
     }
 
-    return new CommandOptions(
-        (flagStart < 0 ? args : args.substring(0, flagStart)).split(" "),
-        flags, switches);
+    return options.build((flagStart < 0 ? args : args.substring(0, flagStart)).split(" "));
 
   }
 
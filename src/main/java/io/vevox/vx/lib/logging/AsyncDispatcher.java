@@ -0,0 +1,496 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands messages from a {@link vxLogger} to its transports on background threads.
+ * <p>
+ * Messages are written into a preallocated, bounded ring of reusable
+ * {@link Transport.TransportedMessage} slots. Producers claim a slot with a single CAS and
+ * publish it without taking any locks; one or more consumer threads then drain the ring and
+ * deliver each message to the logger's transports. When more than one consumer is used, each
+ * transport is owned by exactly one consumer, so every transport still sees its messages in
+ * order and from a single thread.
+ * <p>
+ * Consumers coalesce messages into batches, handed to each transport at once through
+ * {@link Transport#receiveBatch(Transport.TransportedMessage[], int, int)}. A batch is delivered
+ * once it holds the maximum number of messages, or once no more messages are waiting and the
+ * oldest message in it has waited for the maximum batch delay.
+ * <p>
+ * When the ring is full, the {@link Backpressure} policy of the logging logger decides whether
+ * the message waits for space, is dropped or is spilled to an overflow file. The server's main
+ * thread never waits.
+ * <p>
+ * A dispatcher is attached to a logger with {@link vxLogger#async(AsyncDispatcher)} and is
+ * inherited by all of that logger's children.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class AsyncDispatcher {
+
+  /**
+   * The default number of slots in the ring.
+   */
+  public static final int DEFAULT_CAPACITY = 8192;
+
+  /**
+   * The default maximum number of messages in a batch.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  private static final int SPIN_TRIES = 64, YIELD_TRIES = 128;
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  /**
+   * How often pending summaries of {@link RateLimiter rate-limited} repeats are logged for the
+   * loggers using a dispatcher.
+   */
+  public static final long SUMMARY_INTERVAL_MILLIS = 1000;
+
+  /**
+   * Returned by {@link #claim(vxLogger, LoggingLevel)} when the caller should deliver the message
+   * itself, or when the ring is full and the message should not wait.
+   */
+  private static final long DELIVER = -1, FULL = -2;
+
+  private final Transport.TransportedMessage[] ring;
+  private final AtomicLongArray published;
+  private final int mask;
+
+  private final AtomicLong cursor = new AtomicLong(-1);
+  private volatile long gatingCache = -1;
+
+  private final int batchSize;
+  private final long batchDelay;
+
+  private final Worker[] workers;
+  private volatile boolean running;
+  private ScheduledThreadPoolExecutor reporter;
+
+  private final LongAdder stalls = new LongAdder(), dropped = new LongAdder(), spilled = new LongAdder();
+  private long reportedDropped, reportedSpilled;
+
+  /**
+   * Creates a new dispatcher with the {@link #DEFAULT_CAPACITY default capacity} and a single
+   * consumer thread.
+   *
+   * @since 0.2.0-m1.10.2
+   */
+  public AsyncDispatcher() {
+    this(DEFAULT_CAPACITY, 1);
+  }
+
+  /**
+   * Creates a new dispatcher. The capacity is rounded up to the next power of two.
+   *
+   * @param capacity  The number of message slots in the ring.
+   * @param consumers The number of consumer threads draining the ring.
+   *
+   * @throws IllegalArgumentException If the capacity or consumer count is not positive.
+   * @since 0.2.0-m1.10.2
+   */
+  public AsyncDispatcher(int capacity, int consumers) throws IllegalArgumentException {
+    this(capacity, consumers, DEFAULT_BATCH_SIZE, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates a new dispatcher. The capacity is rounded up to the next power of two.
+   * <p>
+   * With no batch delay, a batch holds whatever was waiting when the consumer caught up, so
+   * messages are never held back; a delay trades latency for larger batches when logging is
+   * sparse.
+   *
+   * @param capacity   The number of message slots in the ring.
+   * @param consumers  The number of consumer threads draining the ring.
+   * @param batchSize  The maximum number of messages in a batch.
+   * @param batchDelay The maximum time a message waits for its batch to fill.
+   * @param unit       The unit of the batch delay.
+   *
+   * @throws IllegalArgumentException If the capacity, consumer count or batch size is not
+   *                                  positive, or the batch delay is negative.
+   * @since 0.2.0-m1.10.2
+   */
+  public AsyncDispatcher(int capacity, int consumers, int batchSize, long batchDelay, TimeUnit unit)
+      throws IllegalArgumentException {
+    Validate.isTrue(capacity > 0, "Capacity must be positive");
+    Validate.isTrue(consumers > 0, "Consumer count must be positive");
+    Validate.isTrue(capacity <= 1 << 30, "Capacity is too large");
+    Validate.isTrue(batchSize > 0, "Batch size must be positive");
+    Validate.isTrue(batchDelay >= 0, "Batch delay must not be negative");
+    Validate.notNull(unit);
+
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) size <<= 1;
+
+    ring = new Transport.TransportedMessage[size];
+    published = new AtomicLongArray(size);
+    mask = size - 1;
+    for (int i = 0; i < size; i++) {
+      ring[i] = new Transport.TransportedMessage(null, null, null);
+      published.set(i, -1);
+    }
+    this.batchSize = Math.min(batchSize, size);
+    this.batchDelay = unit.toNanos(batchDelay);
+
+    workers = new Worker[consumers];
+    for (int i = 0; i < consumers; i++)
+      workers[i] = new Worker(i);
+  }
+
+  /**
+   * Starts the consumer threads of this dispatcher.
+   *
+   * @return This dispatcher.
+   * @throws IllegalStateException If the dispatcher has already been started.
+   * @since 0.2.0-m1.10.2
+   */
+  public synchronized AsyncDispatcher start() throws IllegalStateException {
+    if (running || workers[0].getState() != Thread.State.NEW)
+      throw new IllegalStateException("Dispatcher has already been started");
+    running = true;
+    for (Worker worker : workers) worker.start();
+
+    reporter = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread thread = new Thread(r, "vxLogger-async-report");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reporter.scheduleWithFixedDelay(this::report, REPORT_INTERVAL_NANOS, REPORT_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+    reporter.scheduleWithFixedDelay(this::summarize, SUMMARY_INTERVAL_MILLIS, SUMMARY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    return this;
+  }
+
+  private void summarize() {
+    try {
+      vxLogger.summarize(this);
+    } catch (RuntimeException e) {
+      // A failing transport must not cancel later summaries; its failure is counted where it occurs
+    }
+  }
+
+  /**
+   * Logs a warning to the root logger if messages were dropped or spilled since the last one. Runs
+   * every {@link #REPORT_INTERVAL_NANOS} on a thread of its own, however busy the consumers are,
+   * and is logged like any other message, so each transport still receives it from the consumer
+   * that owns it.
+   */
+  private void report() {
+    long dropped = this.dropped.sum(), spilled = this.spilled.sum();
+    if (dropped == reportedDropped && spilled == reportedSpilled) return;
+
+    long newlyDropped = dropped - reportedDropped, newlySpilled = spilled - reportedSpilled;
+    reportedDropped = dropped;
+    reportedSpilled = spilled;
+    try {
+      vxLogger.root().warning("%d messages dropped and %d spilled because the async logging queue "
+          + "was full", newlyDropped, newlySpilled);
+    } catch (RuntimeException e) {
+      // A failing transport must not cancel later reports; its failure is counted where it occurs
+    }
+  }
+
+  /**
+   * Gets whether or not this dispatcher is accepting messages.
+   *
+   * @return True if running.
+   */
+  public boolean running() {
+    return running;
+  }
+
+  /**
+   * Gets the number of slots in the ring.
+   *
+   * @return The capacity.
+   */
+  public int capacity() {
+    return ring.length;
+  }
+
+  /**
+   * Gets the number of messages waiting to be delivered.
+   *
+   * @return The queue depth.
+   */
+  public int size() {
+    return (int) Math.max(0, cursor.get() - minimumSequence());
+  }
+
+  /**
+   * Gets the number of times a producer had to wait because the ring was full.
+   *
+   * @return The number of stalls.
+   */
+  public long stalls() {
+    return stalls.sum();
+  }
+
+  /**
+   * Gets the number of messages dropped because the ring was full.
+   *
+   * @return The number of dropped messages.
+   * @see Backpressure
+   */
+  public long dropped() {
+    return dropped.sum();
+  }
+
+  /**
+   * Gets the number of messages written to an overflow file because the ring was full.
+   *
+   * @return The number of spilled messages.
+   * @see Backpressure#spill(java.io.File)
+   */
+  public long spilled() {
+    return spilled.sum();
+  }
+
+  /**
+   * Enqueues a message for delivery.
+   * <p>
+   * If the dispatcher is not running, or is called from one of its own consumer threads (such as
+   * a transport that logs while receiving), the message is not enqueued and the caller is
+   * expected to deliver it itself. If the ring is full, the message is handled according to the
+   * logger's {@link Backpressure} policy.
+   *
+   * @param logger  The logger the message was logged to.
+   * @param level   The level of the message.
+   * @param message The message.
+   * @param trace   The stack trace of the message, or null.
+   * @param keys    The keys of the message's fields.
+   * @param values  The values of the message's fields.
+   * @param count   The number of fields.
+   *
+   * @return True if the message was enqueued.
+   */
+  boolean publish(vxLogger logger, LoggingLevel level, String message, StackTrace trace, String[] keys,
+                  Object[] values, int count) {
+    long seq = claim(logger, level);
+    if (seq == DELIVER) return false;
+    if (seq == FULL) {
+      overflow(logger, level, new Transport.TransportedMessage(message, logger, level)
+          .trace(trace).fields(keys, values, count));
+      return true;
+    }
+    ring[(int) seq & mask].set(message, logger, level, System.currentTimeMillis())
+        .trace(trace).fields(keys, values, count);
+    published.lazySet((int) seq & mask, seq);
+    return true;
+  }
+
+  /**
+   * Enqueues a templated message for delivery. Rendering is left to the transports.
+   *
+   * @param logger   The logger the message was logged to.
+   * @param level    The level of the message.
+   * @param template The template of the message.
+   * @param args     The unformatted arguments of the template.
+   * @param trace    The stack trace of the message, or null.
+   * @param keys     The keys of the message's fields.
+   * @param values   The values of the message's fields.
+   * @param count    The number of fields.
+   *
+   * @return True if the message was enqueued.
+   * @see #publish(vxLogger, LoggingLevel, String, StackTrace, String[], Object[], int)
+   */
+  boolean publish(vxLogger logger, LoggingLevel level, MessageTemplate template, Object[] args,
+                  StackTrace trace, String[] keys, Object[] values, int count) {
+    long seq = claim(logger, level);
+    if (seq == DELIVER) return false;
+    if (seq == FULL) {
+      overflow(logger, level, new Transport.TransportedMessage(template, args, logger, level)
+          .trace(trace).fields(keys, values, count));
+      return true;
+    }
+    ring[(int) seq & mask].set(template, args, logger, level, System.currentTimeMillis())
+        .trace(trace).fields(keys, values, count);
+    published.lazySet((int) seq & mask, seq);
+    return true;
+  }
+
+  private long claim(vxLogger logger, LoggingLevel level) {
+    if (!running || isWorker()) return DELIVER;
+    boolean stalled = false;
+    while (true) {
+      long current = cursor.get(), next = current + 1, wrap = next - ring.length;
+
+      if (wrap > gatingCache) {
+        long min = minimumSequence();
+        gatingCache = min;
+        if (wrap > min) {
+          // The ring is full; wait for the slowest consumer to free a slot, if allowed to.
+          if (!running) return DELIVER;
+          if (!stalled) {
+            if (!logger.backpressure().blocks(level) || isPrimaryThread()) return FULL;
+            stalled = true;
+            stalls.increment();
+          }
+          LockSupport.parkNanos(1);
+          continue;
+        }
+      }
+
+      if (cursor.compareAndSet(current, next)) return next;
+    }
+  }
+
+  private void overflow(vxLogger logger, LoggingLevel level, Transport.TransportedMessage msg) {
+    if (logger.backpressure().spill(msg)) {
+      spilled.increment();
+    } else {
+      logger.drop(level);
+      dropped.increment();
+    }
+  }
+
+  private static boolean isPrimaryThread() {
+    return Bukkit.getServer() != null && Bukkit.isPrimaryThread();
+  }
+
+  private long minimumSequence() {
+    long min = Long.MAX_VALUE;
+    for (Worker worker : workers)
+      min = Math.min(min, worker.sequence.get());
+    return min;
+  }
+
+  private boolean isWorker() {
+    Thread thread = Thread.currentThread();
+    return thread instanceof Worker && ((Worker) thread).dispatcher() == this;
+  }
+
+  /**
+   * Blocks until every message enqueued before this call has been delivered, or until the timeout
+   * elapses. Has no effect when called from one of this dispatcher's consumer threads.
+   *
+   * @param timeout The maximum time to wait.
+   * @param unit    The unit of the timeout.
+   *
+   * @return True if all messages were delivered.
+   * @since 0.2.0-m1.10.2
+   */
+  public boolean flush(long timeout, TimeUnit unit) {
+    if (isWorker()) return false;
+    long target = cursor.get(), deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (minimumSequence() < target) {
+      if (System.nanoTime() - deadline >= 0 || !anyAlive()) return false;
+      LockSupport.parkNanos(IDLE_PARK_NANOS / 10);
+    }
+    return true;
+  }
+
+  /**
+   * Stops accepting new messages, delivers everything that is already enqueued and stops the
+   * consumer threads. Loggers using this dispatcher will deliver synchronously afterwards.
+   *
+   * @param timeout The maximum time to wait for the ring to drain.
+   * @param unit    The unit of the timeout.
+   *
+   * @return True if the ring was fully drained.
+   * @since 0.2.0-m1.10.2
+   */
+  public boolean close(long timeout, TimeUnit unit) {
+    synchronized (this) {
+      if (!running) return !anyAlive();
+      running = false;
+      reporter.shutdownNow();
+    }
+
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (Worker worker : workers) {
+      LockSupport.unpark(worker);
+      long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      try {
+        if (remaining > 0) worker.join(remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return !anyAlive();
+  }
+
+  private boolean anyAlive() {
+    for (Worker worker : workers)
+      if (worker.isAlive()) return true;
+    return false;
+  }
+
+  private class Worker extends Thread {
+
+    private final AtomicLong sequence = new AtomicLong(-1);
+    private final int shard;
+    private final MessageBatch batch = new MessageBatch(batchSize);
+
+    private Worker(int shard) {
+      super("vxLogger-async-" + shard);
+      this.shard = shard;
+      setDaemon(true);
+    }
+
+    private AsyncDispatcher dispatcher() {
+      return AsyncDispatcher.this;
+    }
+
+    @Override
+    public void run() {
+      long next = 0, batchStart = 0;
+      int idle = 0, batched = 0;
+
+      while (true) {
+        int index = (int) next & mask;
+        if (published.get(index) == next) {
+          if (batched == 0) batchStart = System.nanoTime();
+          Transport.TransportedMessage msg = ring[index];
+          try {
+            msg.logger.collect(msg, shard, workers.length, batch);
+          } catch (Throwable t) {
+            LoggingMetrics.error(msg.logger, "deliver a message", t);
+          }
+          next++;
+          idle = 0;
+          if (++batched >= batchSize) {
+            deliver(next);
+            batched = 0;
+          }
+        } else if (batched > 0 && (!running || System.nanoTime() - batchStart >= batchDelay)) {
+          deliver(next);
+          batched = 0;
+        } else if (!running && next > cursor.get()) {
+          break;
+        } else if (idle < SPIN_TRIES) {
+          idle++;
+        } else if (idle < YIELD_TRIES) {
+          idle++;
+          Thread.yield();
+        } else {
+          if (idle == YIELD_TRIES && batched == 0) {
+            // Going idle; the buffers are allocated again when needed.
+            idle++;
+            batch.clear();
+          }
+          LockSupport.parkNanos(this, batched > 0 ? Math.min(IDLE_PARK_NANOS, batchDelay) : IDLE_PARK_NANOS);
+        }
+      }
+    }
+
+    private void deliver(long next) {
+      // Slots are only released once their batch is delivered, as the batch still refers to them.
+      batch.deliver();
+      sequence.lazySet(next - 1);
+    }
+
+  }
+
+}
@@ -0,0 +1,241 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * What a {@link vxLogger} does with a message when its {@link AsyncDispatcher} is full because
+ * the transports cannot keep up. Set with {@link vxLogger#backpressure(Backpressure)} and inherited
+ * by child loggers.
+ * <p>
+ * Regardless of the policy, the server's main thread is never made to wait: where a policy would
+ * block, messages logged from the main thread are dropped instead. Every dropped message is
+ * counted by its logger and by the dispatcher, which periodically logs a summary of them.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class Backpressure {
+
+  /**
+   * The kinds of policy.
+   */
+  public enum Mode {
+
+    /**
+     * Wait for space in the queue.
+     */
+    BLOCK,
+
+    /**
+     * Drop the new message.
+     */
+    DROP_NEW,
+
+    /**
+     * Drop the new message if it is below a level, otherwise wait for space in the queue.
+     */
+    DROP_BELOW,
+
+    /**
+     * Write the new message to an overflow file instead.
+     */
+    SPILL
+
+  }
+
+  /**
+   * Makes the logging thread wait until there is space in the queue. This is the default.
+   */
+  public static final Backpressure BLOCK = new Backpressure(Mode.BLOCK, null, null);
+
+  /**
+   * Drops messages that do not fit in the queue.
+   */
+  public static final Backpressure DROP_NEW = new Backpressure(Mode.DROP_NEW, null, null);
+
+  /**
+   * The most spilled messages waiting to be written to the overflow file.
+   */
+  public static final int SPILL_QUEUE_CAPACITY = 4096;
+
+  private final Mode mode;
+  private final LoggingLevel level;
+  private final TransportFile spill;
+
+  private final Queue<Transport.TransportedMessage> pending;
+  private final AtomicInteger queued = new AtomicInteger();
+  private final Runnable drain = this::drain;
+  private volatile boolean closed;
+
+  private Backpressure(Mode mode, LoggingLevel level, TransportFile spill) {
+    this.mode = mode;
+    this.level = level;
+    this.spill = spill;
+    this.pending = spill == null ? null : new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * Creates a policy dropping messages below the given level that do not fit in the queue, and
+   * waiting for space for any others.
+   *
+   * @param level The lowest level that is never dropped from threads other than the main thread.
+   *
+   * @return The policy.
+   * @throws IllegalArgumentException If the level is null.
+   */
+  public static Backpressure dropBelow(LoggingLevel level) throws IllegalArgumentException {
+    Validate.notNull(level);
+    return new Backpressure(Mode.DROP_BELOW, level, null);
+  }
+
+  /**
+   * Creates a policy writing messages that do not fit in the queue to an overflow file, in the
+   * same layout as {@link TransportFile}. Spilled messages are handed to the file's own thread
+   * through a bounded, lock-free queue of {@link #SPILL_QUEUE_CAPACITY} messages, so the logging
+   * thread neither writes to the file nor waits for it; messages that do not fit in that queue
+   * either are dropped and counted.
+   *
+   * @param file The overflow file.
+   *
+   * @return The policy.
+   * @throws IOException              If the file cannot be opened.
+   * @throws IllegalArgumentException If the file is null.
+   */
+  public static Backpressure spill(File file) throws IOException, IllegalArgumentException {
+    Validate.notNull(file);
+    return new Backpressure(Mode.SPILL, null, new TransportFile("spill", LoggingLevel.SILLY, file,
+        TransportFile.DEFAULT_MAX_BYTES, 0, TransportFile.Fsync.NEVER));
+  }
+
+  /**
+   * Gets the kind of this policy.
+   *
+   * @return The mode.
+   */
+  public Mode mode() {
+    return mode;
+  }
+
+  /**
+   * Gets the lowest level that is waited for, if this policy {@link Mode#DROP_BELOW drops below}
+   * a level.
+   *
+   * @return The level, or null for other modes.
+   */
+  public LoggingLevel level() {
+    return level;
+  }
+
+  /**
+   * Gets the overflow file, if this policy {@link Mode#SPILL spills}.
+   *
+   * @return The file, or null for other modes.
+   */
+  public File file() {
+    return spill == null ? null : spill.file();
+  }
+
+  /**
+   * Checks whether a message at the given level should wait for space in the queue.
+   *
+   * @param level The level of the message.
+   *
+   * @return True if the logging thread should wait.
+   */
+  boolean blocks(LoggingLevel level) {
+    return mode == Mode.BLOCK || mode == Mode.DROP_BELOW && level.ordinal() >= this.level.ordinal();
+  }
+
+  /**
+   * Hands a message to the thread of the overflow file, without waiting for it.
+   *
+   * @param msg The message, which must not be a slot of a dispatcher's ring.
+   *
+   * @return False if this policy does not spill or is closed, or too many spilled messages are
+   * waiting to be written already.
+   */
+  boolean spill(Transport.TransportedMessage msg) {
+    if (spill == null || closed) return false;
+    int waiting = queued.getAndIncrement();
+    if (waiting >= SPILL_QUEUE_CAPACITY) {
+      queued.decrementAndGet();
+      return false;
+    }
+    pending.offer(msg);
+    // Only the message arriving at an empty queue schedules the writer, which runs until the
+    // queue is empty again.
+    if (waiting == 0) spill.execute(drain);
+    return true;
+  }
+
+  /**
+   * Writes waiting messages to the overflow file, on its thread.
+   */
+  private void drain() {
+    Transport.TransportedMessage[] batch = new Transport.TransportedMessage[64];
+    while (true) {
+      int count = 0;
+      while (count < batch.length) {
+        Transport.TransportedMessage msg = pending.poll();
+        if (msg == null) break;
+        batch[count++] = msg;
+      }
+      if (count > 0) {
+        try {
+          spill.receiveBatch(batch, 0, count);
+        } catch (RuntimeException e) {
+          // Still counted off below, or the writer would never be scheduled again
+          LoggingMetrics.error(spill, "write spilled messages", e);
+        }
+        Arrays.fill(batch, 0, count, null);
+      }
+      // The count is raised before a message is queued, so it may briefly run ahead of the queue.
+      if (queued.addAndGet(-count) == 0) return;
+      if (count == 0) Thread.yield();
+    }
+  }
+
+  /**
+   * Gets the number of spilled messages waiting to be written to the overflow file.
+   *
+   * @return The number of messages, or 0 if this policy does not spill.
+   */
+  public int queued() {
+    return queued.get();
+  }
+
+  /**
+   * Writes any spilled messages still waiting and closes the overflow file, if this policy
+   * spills. Messages are no longer spilled afterwards, and are dropped instead.
+   */
+  public void close() {
+    if (spill == null || closed) return;
+    closed = true;
+
+    // Written on the file's thread, after any drain already running there
+    Future<?> drained = spill.execute(drain);
+    if (drained != null) {
+      try {
+        drained.get(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException | TimeoutException e) {
+        LoggingMetrics.error(spill, "write spilled messages", e);
+      }
+    }
+    spill.close();
+  }
+
+}
@@ -0,0 +1,154 @@
+package io.vevox.vx.lib.logging;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Standalone decoder rendering files written by {@link TransportBinary} back to text, one line per
+ * message, in the same layout as {@link TransportFile}.
+ * <p>
+ * Usage: <code>java -cp vxLib.jar io.vevox.vx.lib.logging.BinaryLogDecoder &lt;file&gt;</code>
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class BinaryLogDecoder {
+
+  private static final LoggingLevel[] LEVELS = LoggingLevel.values();
+
+  private final List<String> loggers = new ArrayList<>();
+  private final List<Object> templates = new ArrayList<>();
+  private final List<String> args = new ArrayList<>();
+  private final StringBuilder line = new StringBuilder();
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+  private long time;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: BinaryLogDecoder <file>");
+      System.exit(1);
+    }
+    Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    new BinaryLogDecoder().decode(new File(args[0]), out);
+    out.flush();
+  }
+
+  /**
+   * Decodes a binary log file, appending each message as a line of text.
+   *
+   * @param file The file to decode.
+   * @param out  Where to append the decoded lines.
+   *
+   * @throws IOException If the file cannot be read or is not a binary log.
+   */
+  public void decode(File file, Appendable out) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long length = channel.size();
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          Math.min(length, TransportBinary.HEADER_SIZE));
+      if (header.remaining() < TransportBinary.HEADER_SIZE || header.getInt() != TransportBinary.MAGIC)
+        throw new IOException("Not a binary log: " + file);
+      if (header.get() != TransportBinary.VERSION)
+        throw new IOException("Unsupported binary log version: " + file);
+      int segmentSize = header.getInt();
+      time = header.getLong();
+
+      for (long start = 0; start < length; start += segmentSize) {
+        ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start,
+            Math.min(segmentSize, length - start));
+        if (start == 0) segment.position(TransportBinary.HEADER_SIZE);
+        decodeSegment(segment, out);
+      }
+    }
+  }
+
+  private void decodeSegment(ByteBuffer in, Appendable out) throws IOException {
+    while (in.hasRemaining()) {
+      byte tag = in.get();
+      switch (tag) {
+        case TransportBinary.TAG_END:
+          return;
+        case TransportBinary.TAG_LOGGER:
+          define(loggers, (int) getVarint(in), getString(in));
+          break;
+        case TransportBinary.TAG_TEMPLATE:
+          int id = (int) getVarint(in);
+          boolean placeholders = in.get() == TransportBinary.KIND_PLACEHOLDER;
+          String template = getString(in);
+          define(templates, id, placeholders ? MessageTemplate.of(template) : template);
+          break;
+        case TransportBinary.TAG_MESSAGE:
+        case TransportBinary.TAG_LITERAL:
+          time += unzigzag(getVarint(in));
+          LoggingLevel level = LEVELS[in.get()];
+          String logger = loggers.get((int) getVarint(in));
+          String message = tag == TransportBinary.TAG_LITERAL ? getString(in) : getTemplated(in);
+          line.setLength(0);
+          line.append(dateFormat.format(new Date(time))).append(' ')
+              .append(level.toString()).append(' ').append(logger).append(": ")
+              .append(message);
+          getFields(in);
+          out.append(line.append('\n'));
+          break;
+        default:
+          throw new IOException("Corrupt binary log: unknown record tag " + tag);
+      }
+    }
+  }
+
+  private String getTemplated(ByteBuffer in) {
+    Object template = templates.get((int) getVarint(in));
+    int argc = (int) getVarint(in);
+    args.clear();
+    for (int i = 0; i < argc; i++) args.add(getString(in));
+    if (template instanceof MessageTemplate)
+      return ((MessageTemplate) template).render(args.toArray());
+    return (String) template;
+  }
+
+  private void getFields(ByteBuffer in) {
+    int count = (int) getVarint(in);
+    for (int i = 0; i < count; i++) {
+      int key = (int) getVarint(in);
+      TransportFile.appendField(line, key == 0 ? getString(in) : (String) templates.get(key - 1), getString(in));
+    }
+  }
+
+  private static <T> void define(List<T> table, int id, T value) throws IOException {
+    if (id != table.size()) throw new IOException("Corrupt binary log: out of order id " + id);
+    table.add(value);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static long getVarint(ByteBuffer in) {
+    long value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) return value;
+    }
+  }
+
+  private static String getString(ByteBuffer in) {
+    int length = (int) getVarint(in);
+    byte[] bytes = new byte[length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,108 @@
+package io.vevox.vx.lib.logging;
+
+/**
+ * Formats {@link Transport.TransportedMessage}s as single-line JSON objects, for transports
+ * producing structured output:
+ * <pre>
+ * {"time":1476213600000,"level":"INFO","logger":"vxLib","message":"...","fields":{"player":"..."}}
+ * </pre>
+ * A <code>trace</code> reference follows the message if it was logged with a {@link StackTrace}.
+ * The <code>fields</code> object is only present when the message has
+ * {@link Transport.TransportedMessage#fieldCount() fields}. Numbers and booleans are written as
+ * JSON values; anything else is written as a string.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class JsonFormat {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private JsonFormat() { }
+
+  /**
+   * Appends a message as a JSON object, without a trailing line break.
+   *
+   * @param out The builder to append to.
+   * @param msg The message.
+   *
+   * @return The builder.
+   */
+  public static StringBuilder append(StringBuilder out, Transport.TransportedMessage msg) {
+    out.append("{\"time\":").append(msg.time)
+        .append(",\"level\":\"").append(msg.level).append('"')
+        .append(",\"logger\":");
+    appendString(out, msg.logger.name).append(",\"message\":");
+    appendString(out, msg.message());
+    if (msg.stackTrace() != null) out.append(",\"trace\":\"").append(msg.stackTrace().reference()).append('"');
+
+    int count = msg.fieldCount();
+    if (count > 0) {
+      out.append(",\"fields\":{");
+      for (int i = 0; i < count; i++) {
+        if (i > 0) out.append(',');
+        appendString(out, msg.fieldKey(i)).append(':');
+        appendValue(out, msg.fieldValue(i));
+      }
+      out.append('}');
+    }
+    return out.append('}');
+  }
+
+  /**
+   * Appends a value as a JSON number, boolean, null or string.
+   *
+   * @param out   The builder to append to.
+   * @param value The value.
+   *
+   * @return The builder.
+   */
+  public static StringBuilder appendValue(StringBuilder out, Object value) {
+    if (value == null) return out.append("null");
+    if (value instanceof Boolean || value instanceof Integer || value instanceof Long
+        || value instanceof Short || value instanceof Byte)
+      return out.append(value);
+    if ((value instanceof Double || value instanceof Float) && !Double.isNaN(((Number) value).doubleValue())
+        && !Double.isInfinite(((Number) value).doubleValue()))
+      return out.append(value);
+    return appendString(out, MessageTemplate.toString(value));
+  }
+
+  /**
+   * Appends a quoted and escaped JSON string.
+   *
+   * @param out The builder to append to.
+   * @param str The string.
+   *
+   * @return The builder.
+   */
+  public static StringBuilder appendString(StringBuilder out, CharSequence str) {
+    out.append('"');
+    for (int i = 0, len = str.length(); i < len; i++) {
+      char c = str.charAt(i);
+      switch (c) {
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          out.append("\\r");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        default:
+          if (c < 0x20) out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+          else out.append(c);
+      }
+    }
+    return out.append('"');
+  }
+
+}
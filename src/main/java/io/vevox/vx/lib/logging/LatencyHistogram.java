@@ -0,0 +1,122 @@
+package io.vevox.vx.lib.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds.
+ * <p>
+ * Values are counted in log-linear buckets in the style of HDR histograms: every power of two is
+ * split into {@link #SUB_BUCKETS} equal buckets, so recorded values keep roughly two significant
+ * digits of precision across the whole range of a <code>long</code>.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class LatencyHistogram {
+
+  /**
+   * The number of buckets each power of two is split into.
+   */
+  public static final int SUB_BUCKETS = 16;
+
+  private static final int SUB_BITS = 4, LINEAR = SUB_BUCKETS * 2;
+  private static final int BUCKETS = (64 - SUB_BITS - 1) * SUB_BUCKETS + SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder(), total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos The duration, in nanoseconds. Negative values are recorded as 0.
+   */
+  public void record(long nanos) {
+    record(nanos, 1);
+  }
+
+  /**
+   * Records the same duration a number of times, such as the mean time taken by each message of a
+   * batch.
+   *
+   * @param nanos The duration, in nanoseconds. Negative values are recorded as 0.
+   * @param times The number of times to record it.
+   */
+  public void record(long nanos, int times) {
+    if (times <= 0) return;
+    if (nanos < 0) nanos = 0;
+    counts.addAndGet(index(nanos), times);
+    count.add(times);
+    total.add(nanos * times);
+
+    long current;
+    while (nanos > (current = max.get()))
+      if (max.compareAndSet(current, nanos)) break;
+  }
+
+  static int index(long value) {
+    if (value < LINEAR) return (int) value;
+    int shift = 64 - Long.numberOfLeadingZeros(value) - (SUB_BITS + 1);
+    return shift * SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  static long highestValue(int index) {
+    if (index < LINEAR) return index;
+    int shift = index / SUB_BUCKETS - 1;
+    long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+
+  /**
+   * Gets the number of recorded durations.
+   *
+   * @return The count.
+   */
+  public long count() {
+    return count.sum();
+  }
+
+  /**
+   * Gets the longest recorded duration.
+   *
+   * @return The maximum, in nanoseconds.
+   */
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * Gets the mean recorded duration.
+   *
+   * @return The mean, in nanoseconds, or 0 if nothing was recorded.
+   */
+  public double mean() {
+    long count = count();
+    return count == 0 ? 0 : (double) total.sum() / count;
+  }
+
+  /**
+   * Gets the duration at or below which the given percentage of recorded durations fall. The
+   * result is the upper bound of the bucket the percentile falls in.
+   *
+   * @param percentile The percentile, from 0 to 100.
+   *
+   * @return The duration, in nanoseconds, or 0 if nothing was recorded.
+   */
+  public long percentile(double percentile) {
+    long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++)
+      count += snapshot[i] = counts.get(i);
+    if (count == 0) return 0;
+
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * count)), seen = 0;
+    for (int i = 0; i < BUCKETS; i++)
+      if ((seen += snapshot[i]) >= target) return Math.min(highestValue(i), max());
+    return max();
+  }
+
+}
@@ -0,0 +1,144 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A diagnostic context of key/value fields scoped to the current thread, attached to every
+ * message logged from that thread in addition to the fields of the message itself.
+ * <p>
+ * Each thread keeps a single reusable frame of parallel key and value arrays, so entering and
+ * leaving a context does not allocate once the frame has grown to fit. Fields are used as a
+ * stack: {@link #push(String, Object)} returns a mark that {@link #pop(int)} restores, which
+ * suits nested scopes such as a command running on behalf of a player.
+ * <pre>
+ * int mark = LogContext.push("player", player.getUniqueId());
+ * try {
+ *   ...
+ * } finally {
+ *   LogContext.pop(mark);
+ * }
+ * </pre>
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class LogContext {
+
+  private static final class Frame {
+
+    private String[] keys = new String[8];
+    private Object[] values = new Object[8];
+    private int size;
+
+  }
+
+  private static final ThreadLocal<Frame> frames = ThreadLocal.withInitial(Frame::new);
+
+  /**
+   * Set once any thread has used a context, so that loggers can skip looking one up until then.
+   */
+  private static volatile boolean used;
+
+  private LogContext() { }
+
+  private static Frame frame() {
+    if (!used) used = true;
+    return frames.get();
+  }
+
+  /**
+   * Adds a field to the context of the current thread, on top of any field with the same key.
+   *
+   * @param key   The key.
+   * @param value The value.
+   *
+   * @return The mark to {@link #pop(int)} back to, removing this field and any added after it.
+   * @throws IllegalArgumentException If the key is null.
+   */
+  public static int push(String key, @Nullable Object value) throws IllegalArgumentException {
+    Validate.notNull(key);
+    Frame frame = frame();
+    int mark = frame.size;
+    if (mark == frame.keys.length) {
+      frame.keys = Arrays.copyOf(frame.keys, mark * 2);
+      frame.values = Arrays.copyOf(frame.values, mark * 2);
+    }
+    frame.keys[mark] = key;
+    frame.values[mark] = value;
+    frame.size = mark + 1;
+    return mark;
+  }
+
+  /**
+   * Removes every field added to the context of the current thread since the given mark.
+   *
+   * @param mark The mark returned by {@link #push(String, Object)}.
+   */
+  public static void pop(int mark) {
+    Frame frame = frames.get();
+    if (mark < 0 || mark >= frame.size) return;
+    Arrays.fill(frame.keys, mark, frame.size, null);
+    Arrays.fill(frame.values, mark, frame.size, null);
+    frame.size = mark;
+  }
+
+  /**
+   * Sets a field in the context of the current thread, replacing the value of the most recently
+   * added field with the same key if there is one.
+   *
+   * @param key   The key.
+   * @param value The value.
+   *
+   * @throws IllegalArgumentException If the key is null.
+   */
+  public static void put(String key, @Nullable Object value) throws IllegalArgumentException {
+    Validate.notNull(key);
+    Frame frame = frame();
+    for (int i = frame.size - 1; i >= 0; i--) {
+      if (frame.keys[i].equals(key)) {
+        frame.values[i] = value;
+        return;
+      }
+    }
+    push(key, value);
+  }
+
+  /**
+   * Gets the value of a field in the context of the current thread.
+   *
+   * @param key The key.
+   *
+   * @return The value of the most recently added field with the key, or null if there is none.
+   */
+  @Nullable
+  public static Object get(String key) {
+    Frame frame = frames.get();
+    for (int i = frame.size - 1; i >= 0; i--)
+      if (frame.keys[i].equals(key)) return frame.values[i];
+    return null;
+  }
+
+  /**
+   * Removes every field from the context of the current thread.
+   */
+  public static void clear() {
+    pop(0);
+  }
+
+  /**
+   * Copies the context of the current thread onto a message.
+   *
+   * @param msg The message.
+   */
+  static void copyTo(Transport.TransportedMessage msg) {
+    if (!used) return;
+    Frame frame = frames.get();
+    for (int i = 0; i < frame.size; i++)
+      msg.addField(frame.keys[i], frame.values[i]);
+  }
+
+}
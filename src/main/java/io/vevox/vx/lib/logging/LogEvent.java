@@ -0,0 +1,167 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A message being built with structured key/value fields, obtained from
+ * {@link vxLogger#at(LoggingLevel)}.
+ * <pre>
+ * logger.at(LoggingLevel.INFO).with("player", uuid).with("world", world).logp("Joined in {}ms", ms);
+ * </pre>
+ * Each thread reuses a single event, so building one does not allocate once its arrays have
+ * grown to fit. An event must therefore be logged straight away and not kept; once logged, it
+ * is returned to its thread to be used again. Events for disabled levels discard their fields.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class LogEvent {
+
+  /**
+   * The event returned for disabled levels, which ignores everything.
+   */
+  static final LogEvent DISABLED = new LogEvent(null) {
+
+    @Override
+    public LogEvent with(String key, @Nullable Object value) {
+      return this;
+    }
+
+    @Override
+    public void log(String message) { }
+
+    @Override
+    public void logp(String template, Object... args) { }
+
+    @Override
+    public void logp(String template, Object arg) { }
+
+    @Override
+    public void logp(String template, Object arg1, Object arg2) { }
+
+  };
+
+  private static final ThreadLocal<LogEvent[]> spare = ThreadLocal.withInitial(() -> new LogEvent[1]);
+
+  private final LogEvent[] home;
+
+  private vxLogger logger;
+  private LoggingLevel level;
+
+  private String[] keys = new String[4];
+  private Object[] values = new Object[4];
+  private int size;
+
+  private LogEvent(LogEvent[] home) {
+    this.home = home;
+  }
+
+  /**
+   * Takes the spare event of the current thread, or creates one if it is already in use, such as
+   * when an argument being computed for one event logs another.
+   */
+  static LogEvent obtain(vxLogger logger, LoggingLevel level) {
+    LogEvent[] home = spare.get();
+    LogEvent event = home[0];
+    if (event == null) event = new LogEvent(home);
+    else home[0] = null;
+    event.logger = logger;
+    event.level = level;
+    return event;
+  }
+
+  private void release() {
+    Arrays.fill(values, 0, size, null);
+    size = 0;
+    logger = null;
+    level = null;
+    home[0] = this;
+  }
+
+  /**
+   * Adds a field to this event.
+   *
+   * @param key   The key.
+   * @param value The value.
+   *
+   * @return This event.
+   * @throws IllegalArgumentException If the key is null.
+   */
+  public LogEvent with(String key, @Nullable Object value) throws IllegalArgumentException {
+    Validate.notNull(key);
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      values = Arrays.copyOf(values, size * 2);
+    }
+    keys[size] = key;
+    values[size++] = value;
+    return this;
+  }
+
+  /**
+   * Logs this event with a plain message.
+   *
+   * @param message The message.
+   *
+   * @throws IllegalArgumentException If the message is null.
+   * @see vxLogger#log(LoggingLevel, String)
+   */
+  public void log(String message) throws IllegalArgumentException {
+    try {
+      Validate.notNull(message);
+      logger.logFields(level, message, keys, values, size);
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Logs this event with a message template.
+   *
+   * @param template The message template.
+   * @param args     The objects to populate the template with.
+   *
+   * @throws IllegalArgumentException If the template is null.
+   * @see vxLogger#logp(LoggingLevel, String, Object...)
+   */
+  public void logp(String template, Object... args) throws IllegalArgumentException {
+    try {
+      Validate.notNull(template);
+      logger.logFields(level, template, args == null ? vxLogger.NO_ARGS : args, keys, values, size);
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Logs this event with a message template and a single argument.
+   *
+   * @param template The message template.
+   * @param arg      The object to populate the template with.
+   *
+   * @throws IllegalArgumentException If the template is null.
+   * @see #logp(String, Object...)
+   */
+  public void logp(String template, Object arg) throws IllegalArgumentException {
+    logp(template, new Object[]{ arg });
+  }
+
+  /**
+   * Logs this event with a message template and two arguments.
+   *
+   * @param template The message template.
+   * @param arg1     The first object to populate the template with.
+   * @param arg2     The second object to populate the template with.
+   *
+   * @throws IllegalArgumentException If the template is null.
+   * @see #logp(String, Object...)
+   */
+  public void logp(String template, Object arg1, Object arg2) throws IllegalArgumentException {
+    logp(template, new Object[]{ arg1, arg2 });
+  }
+
+}
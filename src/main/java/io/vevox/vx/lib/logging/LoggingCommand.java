@@ -0,0 +1,180 @@
+package io.vevox.vx.lib.logging;
+
+import io.vevox.vx.lib.cmd.CommandDelegator;
+import io.vevox.vx.lib.cmd.CommandException;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import javax.annotation.Nullable;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The <code>/vxlog</code> command, for inspecting and configuring logging in game.
+ * <pre>
+ * /vxlog stats                       Shows message counts, transport latency and queue depth.
+ * /vxlog level &lt;logger&gt; &lt;level&gt;     Sets the level of a logger, or "inherit" to clear it.
+ * /vxlog tail [count] [level] [logger] [seconds]
+ *                                    Shows recent messages, optionally only those at or above a
+ *                                    level, from loggers starting with a prefix ("*" for any) or
+ *                                    logged within the last number of seconds.
+ * </pre>
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class LoggingCommand implements CommandDelegator {
+
+  public static final String PERMISSION = "vxlib.log";
+
+  public static final int DEFAULT_TAIL = 20;
+
+  private final TransportMemory memory;
+
+  /**
+   * Creates the command without a memory transport, so <code>tail</code> is unavailable.
+   */
+  public LoggingCommand() {
+    this(null);
+  }
+
+  /**
+   * Creates the command.
+   *
+   * @param memory The transport <code>tail</code> reads messages from, or null if unavailable.
+   */
+  public LoggingCommand(@Nullable TransportMemory memory) {
+    this.memory = memory;
+  }
+
+  @Override
+  public void command(CommandSender sender, Command cmd, String... args) throws CommandException {
+    if (!sender.hasPermission(PERMISSION))
+      throw new CommandException.InsufficientPermissionsException(PERMISSION);
+    if (args.length == 0) throw new CommandException.MissingArgumentException(0);
+
+    switch (args[0].toLowerCase()) {
+      case "stats":
+        stats(sender);
+        break;
+      case "level":
+        level(sender, args);
+        break;
+      case "tail":
+        tail(sender, args);
+        break;
+      default:
+        throw new CommandException.UnknownArgumentException(0, args[0]);
+    }
+  }
+
+  private void stats(CommandSender sender) {
+    LoggingLevel[] levels = LoggingLevel.values();
+
+    sender.sendMessage(ChatColor.GOLD + "Messages by logger:");
+    for (vxLogger logger : vxLogger.loggers()) {
+      StringBuilder line = new StringBuilder();
+      long total = 0, dropped = 0;
+      for (LoggingLevel level : levels) {
+        long count = logger.count(level);
+        if (count == 0) continue;
+        total += count;
+        dropped += logger.dropped(level);
+        line.append(' ').append(level.color()).append(level.toString().toLowerCase())
+            .append(ChatColor.RESET).append('=').append(count);
+      }
+      if (dropped > 0) line.append(ChatColor.RED).append(" dropped=").append(dropped);
+      if (total > 0) sender.sendMessage("  " + logger.name + ":" + line);
+    }
+
+    sender.sendMessage(ChatColor.GOLD + "Transport receive time (us):");
+    for (Map.Entry<Transport, LatencyHistogram> entry : LoggingMetrics.latencies().entrySet()) {
+      LatencyHistogram latency = entry.getValue();
+      if (latency.count() == 0) continue;
+      long errors = LoggingMetrics.errors(entry.getKey());
+      sender.sendMessage(String.format("  %s: n=%d mean=%.1f p50=%.1f p99=%.1f max=%.1f%s",
+          entry.getKey().name(), latency.count(), latency.mean() / 1000,
+          latency.percentile(50) / 1000.0, latency.percentile(99) / 1000.0, latency.max() / 1000.0,
+          errors > 0 ? ChatColor.RED + " errors=" + errors : ""));
+    }
+
+    AsyncDispatcher dispatcher = vxLogger.root().dispatcher();
+    if (dispatcher != null)
+      sender.sendMessage(String.format("%sAsync queue:%s %d/%d, %d stalls, %d dropped, %d spilled",
+          ChatColor.GOLD, ChatColor.RESET, dispatcher.size(), dispatcher.capacity(), dispatcher.stalls(),
+          dispatcher.dropped(), dispatcher.spilled()));
+  }
+
+  private void level(CommandSender sender, String... args) throws CommandException {
+    if (args.length < 2) throw new CommandException.MissingArgumentException(1);
+    if (args.length < 3) throw new CommandException.MissingArgumentException(2);
+
+    LoggingLevel level = null;
+    if (!args[2].equalsIgnoreCase("inherit")) {
+      try {
+        level = LoggingLevel.valueOf(args[2].toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new CommandException.UnknownArgumentException(2, args[2]);
+      }
+    }
+
+    vxLogger logger = vxLogger.find(args[1]);
+    if (logger == null) throw new CommandException("No logger named " + args[1]);
+    logger.level(level);
+
+    LoggingLevel effective = logger.effectiveLevel();
+    sender.sendMessage(String.format("Level of %s set to %s (effective: %s)", logger.name,
+        level == null ? "inherit" : level.toString().toLowerCase(),
+        effective == null ? "off" : effective.toString().toLowerCase()));
+  }
+
+  private void tail(CommandSender sender, String... args) throws CommandException {
+    if (memory == null) throw new CommandException("No memory transport is available");
+
+    int count = DEFAULT_TAIL;
+    if (args.length > 1) {
+      try {
+        count = Integer.parseInt(args[1]);
+      } catch (NumberFormatException e) {
+        throw new CommandException.UnknownArgumentException(1, args[1]);
+      }
+      if (count <= 0) throw new CommandException.UnknownArgumentException(1, args[1]);
+    }
+
+    LoggingLevel level = null;
+    if (args.length > 2) {
+      try {
+        level = LoggingLevel.valueOf(args[2].toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new CommandException.UnknownArgumentException(2, args[2]);
+      }
+    }
+
+    String prefix = args.length > 3 && !args[3].equals("*") ? args[3] : null;
+
+    long from = Long.MIN_VALUE;
+    if (args.length > 4) {
+      try {
+        from = System.currentTimeMillis() - Long.parseLong(args[4]) * 1000;
+      } catch (NumberFormatException e) {
+        throw new CommandException.UnknownArgumentException(4, args[4]);
+      }
+    }
+
+    List<TransportMemory.Entry> entries = memory.query(level, prefix, from, Long.MAX_VALUE, count);
+    if (entries.isEmpty()) {
+      sender.sendMessage("No matching messages");
+      return;
+    }
+
+    SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss");
+    for (TransportMemory.Entry entry : entries)
+      sender.sendMessage(String.format("%s%s %s%s%s %s: %s", ChatColor.GRAY, format.format(new Date(entry.time)),
+          entry.level.color(), entry.level.toString().toLowerCase(), ChatColor.RESET, entry.logger, entry.message));
+  }
+
+}
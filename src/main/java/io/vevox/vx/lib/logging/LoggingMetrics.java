@@ -0,0 +1,161 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+import org.bukkit.Bukkit;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Access to the cost of logging: how long each {@link Transport} takes to receive messages, and
+ * how often it fails to. Message counts are kept by each {@link vxLogger}, and queue statistics by
+ * each {@link AsyncDispatcher}.
+ * <p>
+ * A transport that fails, for example because its file or connection is gone, cannot be trusted
+ * to log its own failure, nor can the loggers delivering to it. Failures are instead counted here,
+ * along with those of loggers on an {@link AsyncDispatcher}'s threads, and reported as warnings in
+ * the server log at most once every {@link #ERROR_REPORT_INTERVAL_MILLIS} milliseconds per
+ * transport or logger, so one failing on every message does not flood the console.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class LoggingMetrics {
+
+  public static final long ERROR_REPORT_INTERVAL_MILLIS = 60000;
+
+  private static final Map<Transport, LatencyHistogram> latencies =
+      Collections.synchronizedMap(new WeakHashMap<>());
+  private static final Map<Object, Errors> errors =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private static volatile boolean timing = true;
+
+  private LoggingMetrics() { }
+
+  /**
+   * Sets whether the time taken by {@link Transport#receive(Transport.TransportedMessage)} is
+   * measured. Enabled by default.
+   *
+   * @param timing True to measure transports.
+   */
+  public static void timing(boolean timing) {
+    LoggingMetrics.timing = timing;
+  }
+
+  /**
+   * Gets whether the time taken by transports is measured.
+   *
+   * @return True if transports are measured.
+   */
+  public static boolean timing() {
+    return timing;
+  }
+
+  /**
+   * Gets the histogram of the time the given transport takes to receive a message, creating it
+   * if the transport has not been measured yet.
+   *
+   * @param transport The transport.
+   *
+   * @return The histogram.
+   * @throws IllegalArgumentException If the transport is null.
+   */
+  public static LatencyHistogram latency(Transport transport) throws IllegalArgumentException {
+    Validate.notNull(transport);
+    return latencies.computeIfAbsent(transport, t -> new LatencyHistogram());
+  }
+
+  /**
+   * Gets the histograms of every measured transport.
+   *
+   * @return A snapshot of the histograms, by transport.
+   */
+  public static Map<Transport, LatencyHistogram> latencies() {
+    synchronized (latencies) {
+      return new IdentityHashMap<>(latencies);
+    }
+  }
+
+  /**
+   * Gets the number of times the given transport failed to write, send or otherwise handle
+   * messages.
+   *
+   * @param transport The transport.
+   *
+   * @return The number of failures.
+   * @throws IllegalArgumentException If the transport is null.
+   */
+  public static long errors(Transport transport) throws IllegalArgumentException {
+    Validate.notNull(transport);
+    Errors counts = errors.get(transport);
+    return counts == null ? 0 : counts.count.sum();
+  }
+
+  /**
+   * Gets the number of times the given logger failed to hand a message to its transports on an
+   * {@link AsyncDispatcher}'s thread.
+   *
+   * @param logger The logger.
+   *
+   * @return The number of failures.
+   * @throws IllegalArgumentException If the logger is null.
+   */
+  public static long errors(vxLogger logger) throws IllegalArgumentException {
+    Validate.notNull(logger);
+    Errors counts = errors.get(logger);
+    return counts == null ? 0 : counts.count.sum();
+  }
+
+  /**
+   * Counts a failure of a transport, and reports it in the server log unless another failure of
+   * the transport was reported in the last {@link #ERROR_REPORT_INTERVAL_MILLIS} milliseconds.
+   *
+   * @param transport The transport.
+   * @param action    What the transport failed to do, such as <code>"write"</code>.
+   * @param thrown    The cause of the failure.
+   */
+  static void error(Transport transport, String action, Throwable thrown) {
+    error(transport, "Transport " + transport.name(), action, thrown);
+  }
+
+  /**
+   * Counts a failure of a logger, and reports it like a {@link #error(Transport, String, Throwable)
+   * transport failure}.
+   *
+   * @param logger The logger.
+   * @param action What the logger failed to do.
+   * @param thrown The cause of the failure.
+   */
+  static void error(vxLogger logger, String action, Throwable thrown) {
+    error(logger, "Logger " + logger.name, action, thrown);
+  }
+
+  private static void error(Object source, String subject, String action, Throwable thrown) {
+    Errors counts = errors.computeIfAbsent(source, t -> new Errors());
+    counts.count.increment();
+
+    long now = System.currentTimeMillis(), next = counts.nextReport.get();
+    if (now < next || !counts.nextReport.compareAndSet(next, now + ERROR_REPORT_INTERVAL_MILLIS)) return;
+    long total = counts.count.sum(), since = total - counts.reported.getAndSet(total);
+    Logger log = Bukkit.getServer() != null ? Bukkit.getLogger() : Logger.getLogger("vxLogger");
+    log.log(Level.WARNING, "[vxLogger] " + subject + " failed to " + action
+        + (since > 1 ? " (" + since + " failures since the last report)" : "") + ": " + thrown, thrown);
+  }
+
+  private static final class Errors {
+
+    private final LongAdder count = new LongAdder();
+    private final AtomicLong nextReport = new AtomicLong();
+    private final AtomicLong reported = new AtomicLong();
+
+  }
+
+}
@@ -0,0 +1,108 @@
+package io.vevox.vx.lib.logging;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Messages coalesced by one consumer of an {@link AsyncDispatcher}, grouped by the transport they
+ * are to be delivered to. Buffers are kept and reused between batches, until their transport goes
+ * unused for {@link #PRUNE_INTERVAL} batches or the consumer goes idle, so transports that were
+ * removed from their loggers are not kept alive.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+final class MessageBatch {
+
+  private static final class Pending {
+
+    private final Transport transport;
+    private LatencyHistogram latency;
+    private Transport.TransportedMessage[] msgs;
+    private int size;
+    private boolean used;
+
+    private Pending(Transport transport, int capacity) {
+      this.transport = transport;
+      msgs = new Transport.TransportedMessage[capacity];
+    }
+
+  }
+
+  static final int PRUNE_INTERVAL = 1024;
+
+  private final int capacity;
+  private final Map<Transport, Pending> byTransport = new IdentityHashMap<>();
+  private Pending[] active = new Pending[8];
+  private int activeCount, deliveries;
+
+  MessageBatch(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Queues a message for a transport.
+   *
+   * @param transport The transport.
+   * @param latency   The histogram the delivery time is recorded to.
+   * @param msg       The message.
+   */
+  void add(Transport transport, LatencyHistogram latency, Transport.TransportedMessage msg) {
+    Pending pending = byTransport.get(transport);
+    if (pending == null) byTransport.put(transport, pending = new Pending(transport, capacity));
+
+    if (pending.size == 0) {
+      if (activeCount == active.length) active = Arrays.copyOf(active, activeCount * 2);
+      active[activeCount++] = pending;
+      pending.used = true;
+    }
+    if (pending.size == pending.msgs.length)
+      pending.msgs = Arrays.copyOf(pending.msgs, pending.size * 2);
+    pending.latency = latency;
+    pending.msgs[pending.size++] = msg;
+  }
+
+  /**
+   * Hands every queued message to its transport, one batch per transport.
+   */
+  void deliver() {
+    boolean timing = LoggingMetrics.timing();
+    for (int i = 0; i < activeCount; i++) {
+      Pending pending = active[i];
+      try {
+        if (timing) {
+          long start = System.nanoTime();
+          pending.transport.receiveBatch(pending.msgs, 0, pending.size);
+          pending.latency.record((System.nanoTime() - start) / pending.size, pending.size);
+        } else {
+          pending.transport.receiveBatch(pending.msgs, 0, pending.size);
+        }
+      } catch (Throwable t) {
+        LoggingMetrics.error(pending.transport, "receive messages", t);
+      }
+      Arrays.fill(pending.msgs, 0, pending.size, null);
+      pending.size = 0;
+      active[i] = null;
+    }
+    activeCount = 0;
+
+    if (++deliveries >= PRUNE_INTERVAL) {
+      deliveries = 0;
+      byTransport.values().removeIf(pending -> {
+        boolean unused = !pending.used;
+        pending.used = false;
+        return unused;
+      });
+    }
+  }
+
+  /**
+   * Drops the buffers of every transport. Only called with nothing queued.
+   */
+  void clear() {
+    byTransport.clear();
+    deliveries = 0;
+  }
+
+}
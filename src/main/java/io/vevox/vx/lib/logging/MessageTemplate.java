@@ -0,0 +1,139 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A parsed message template using <code>{}</code> placeholders, as accepted by
+ * {@link vxLogger#logp(LoggingLevel, String, Object...)}.
+ * <p>
+ * Each <code>{}</code> is replaced by the next argument. A placeholder preceded by a backslash,
+ * <code>\{}</code>, is rendered as a literal <code>{}</code>. Placeholders without a matching
+ * argument are left as they are, and extra arguments are ignored.
+ * <p>
+ * Templates are parsed once and cached by the identity of their source string, so templates
+ * should be constants or literals.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class MessageTemplate {
+
+  private static final int CACHE_SIZE = 1024;
+
+  /**
+   * A direct-mapped cache indexed by identity hash. Entries are immutable, so racing writers can
+   * only ever cause a template to be parsed again.
+   */
+  private static final MessageTemplate[] cache = new MessageTemplate[CACHE_SIZE];
+
+  /**
+   * The template this was parsed from.
+   */
+  public final String source;
+
+  /**
+   * The literal text around each placeholder; there is always one more part than placeholders.
+   */
+  private final String[] parts;
+  private final int length;
+
+  private MessageTemplate(String source) {
+    this.source = source;
+
+    List<String> parts = new ArrayList<>();
+    StringBuilder part = new StringBuilder();
+    for (int i = 0, len = source.length(); i < len; i++) {
+      char c = source.charAt(i);
+      if (c == '\\' && source.startsWith("{}", i + 1)) {
+        part.append("{}");
+        i += 2;
+      } else if (c == '{' && i + 1 < len && source.charAt(i + 1) == '}') {
+        parts.add(part.toString());
+        part.setLength(0);
+        i++;
+      } else {
+        part.append(c);
+      }
+    }
+    parts.add(part.toString());
+
+    this.parts = parts.toArray(new String[parts.size()]);
+    int length = 0;
+    for (String p : this.parts) length += p.length();
+    this.length = length;
+  }
+
+  /**
+   * Gets the parsed form of the given template.
+   *
+   * @param source The template.
+   *
+   * @return The parsed template.
+   * @throws IllegalArgumentException If the template is null.
+   */
+  public static MessageTemplate of(String source) throws IllegalArgumentException {
+    Validate.notNull(source);
+    int index = System.identityHashCode(source) & (CACHE_SIZE - 1);
+    MessageTemplate template = cache[index];
+    if (template == null || template.source != source)
+      cache[index] = template = new MessageTemplate(source);
+    return template;
+  }
+
+  /**
+   * Gets the number of placeholders in this template.
+   *
+   * @return The number of placeholders.
+   */
+  public int placeholders() {
+    return parts.length - 1;
+  }
+
+  /**
+   * Renders this template with the given arguments.
+   *
+   * @param args The arguments.
+   *
+   * @return The rendered message.
+   */
+  public String render(Object[] args) {
+    if (parts.length == 1) return parts[0];
+    StringBuilder out = new StringBuilder(length + 16 * parts.length);
+    render(out, args);
+    return out.toString();
+  }
+
+  /**
+   * Renders this template with the given arguments, appending the result.
+   *
+   * @param out  Where to append the rendered message.
+   * @param args The arguments.
+   */
+  public void render(StringBuilder out, Object[] args) {
+    out.append(parts[0]);
+    for (int i = 1; i < parts.length; i++) {
+      if (i - 1 < args.length) out.append(toString(args[i - 1]));
+      else out.append("{}");
+      out.append(parts[i]);
+    }
+  }
+
+  /**
+   * Converts a template argument to the text it is rendered as.
+   *
+   * @param arg The argument.
+   *
+   * @return The text.
+   */
+  public static String toString(Object arg) {
+    if (arg == null || !arg.getClass().isArray()) return String.valueOf(arg);
+    String str = Arrays.deepToString(new Object[]{ arg });
+    return str.substring(1, str.length() - 1);
+  }
+
+}
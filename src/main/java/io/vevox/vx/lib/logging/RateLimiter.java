@@ -0,0 +1,276 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how often messages with the same template are logged, collapsing the suppressed repeats
+ * into a single summary line.
+ * <p>
+ * Every distinct template (or plain message) gets its own lock-free token bucket, allowing a
+ * burst of messages followed by a steady rate. Messages over the limit are dropped and counted;
+ * the next message with the same template that is let through is preceded by a summary of how
+ * many repeats were suppressed. Summaries still pending when no further message comes are written
+ * by {@link #flush(Summaries)}, which loggers call when flushed and, with an
+ * {@link AsyncDispatcher}, every {@link AsyncDispatcher#SUMMARY_INTERVAL_MILLIS} milliseconds.
+ * <p>
+ * At most {@link #MAX_KEYS} templates are tracked at once. Plain messages are tracked by their
+ * text, so messages built by concatenation each take a key of their own; once the limit is
+ * reached, idle templates are evicted, and failing that the ones whose buckets would refill first.
+ * <p>
+ * A limiter can be attached to a logger with {@link vxLogger#limit(RateLimiter)}, or to a single
+ * transport with {@link TransportLimited}.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class RateLimiter {
+
+  /**
+   * The maximum number of templates tracked at once.
+   */
+  public static final int MAX_KEYS = 1024;
+
+  /**
+   * Receives the summaries of suppressed repeats.
+   */
+  @FunctionalInterface
+  public interface Summaries {
+
+    /**
+     * Called for each template with suppressed repeats not yet summarized.
+     *
+     * @param key     The template or plain message.
+     * @param logger  The logger the last suppressed repeat was logged to, if known.
+     * @param level   The level of the last suppressed repeat, if known.
+     * @param repeats The number of suppressed repeats.
+     */
+    void summarize(String key, @Nullable vxLogger logger, @Nullable LoggingLevel level, long repeats);
+
+  }
+
+  private final long intervalNanos, limitNanos;
+  private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+  private final Queue<Evicted> evicted = new ConcurrentLinkedQueue<>();
+  private final LongAdder suppressed = new LongAdder();
+
+  /**
+   * Creates a new rate limiter.
+   *
+   * @param perSecond The number of messages per template let through each second.
+   * @param burst     The number of messages per template that may be let through at once.
+   *
+   * @throws IllegalArgumentException If the rate or burst is not positive.
+   */
+  public RateLimiter(double perSecond, int burst) throws IllegalArgumentException {
+    Validate.isTrue(perSecond > 0, "Rate must be positive");
+    Validate.isTrue(burst > 0, "Burst must be positive");
+    intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+    limitNanos = intervalNanos * burst;
+  }
+
+  /**
+   * Attempts to let a message with the given template through.
+   *
+   * @param key The template or plain message.
+   *
+   * @return The number of repeats suppressed since the template was last let through, or -1 if
+   * this message should be suppressed.
+   */
+  public long acquire(String key) {
+    return acquire(key, null, null);
+  }
+
+  /**
+   * Attempts to let a message with the given template through, remembering where it was logged
+   * in case it is suppressed, for its summary to be {@link #flush(Summaries) flushed} there.
+   *
+   * @param key    The template or plain message.
+   * @param logger The logger the message is logged to.
+   * @param level  The level of the message.
+   *
+   * @return The number of repeats suppressed since the template was last let through, or -1 if
+   * this message should be suppressed.
+   */
+  public long acquire(String key, @Nullable vxLogger logger, @Nullable LoggingLevel level) {
+    long now = System.nanoTime();
+    Bucket bucket = buckets.get(key);
+    if (bucket == null) {
+      if (buckets.size() >= MAX_KEYS) evict(now);
+      bucket = buckets.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    // Generic cell rate algorithm: the bucket tracks the theoretical arrival time of the next
+    // message, and a message conforms while that is no further ahead than the burst allows.
+    while (true) {
+      long tat = bucket.arrival.get(), next = Math.max(tat, now) + intervalNanos;
+      if (next - now > limitNanos) {
+        bucket.logger = logger;
+        bucket.level = level;
+        bucket.pending.incrementAndGet();
+        bucket.suppressed.increment();
+        suppressed.increment();
+        return -1;
+      }
+      if (bucket.arrival.compareAndSet(tat, next))
+        return bucket.pending.getAndSet(0);
+    }
+  }
+
+  /**
+   * Makes room for new templates: removes every idle bucket, whose burst has fully refilled and
+   * with no repeats waiting to be summarized, and if that frees less than a quarter of the table,
+   * the buckets that would refill first. Summaries of evicted buckets are kept for the next
+   * {@link #flush(Summaries) flush}.
+   */
+  private void evict(long now) {
+    synchronized (evicted) {
+      if (buckets.size() < MAX_KEYS) return;
+      buckets.entrySet().removeIf(e -> ahead(e.getValue(), now) <= 0 && e.getValue().pending.get() == 0);
+
+      int excess = buckets.size() - MAX_KEYS * 3 / 4;
+      if (excess <= 0) return;
+      List<String> keys = new ArrayList<>(buckets.size());
+      List<Long> aheads = new ArrayList<>(buckets.size());
+      buckets.forEach((key, bucket) -> {
+        keys.add(key);
+        aheads.add(ahead(bucket, now));
+      });
+      Integer[] order = new Integer[keys.size()];
+      for (int i = 0; i < order.length; i++) order[i] = i;
+      Arrays.sort(order, Comparator.comparingLong(aheads::get));
+
+      for (int i = 0; i < excess && i < order.length; i++) {
+        String key = keys.get(order[i]);
+        Bucket bucket = buckets.remove(key);
+        if (bucket == null) continue;
+        long pending = bucket.pending.getAndSet(0);
+        if (pending > 0) evicted.add(new Evicted(key, bucket.logger, bucket.level, pending));
+      }
+    }
+  }
+
+  /**
+   * Gets how far ahead of now the theoretical arrival time of a bucket is; zero or less once its
+   * burst has fully refilled.
+   */
+  private static long ahead(Bucket bucket, long now) {
+    long tat = bucket.arrival.get();
+    return tat == Long.MIN_VALUE ? Long.MIN_VALUE : tat - now;
+  }
+
+  /**
+   * Hands out the summaries of every template with suppressed repeats not yet summarized,
+   * including templates evicted since the last flush, and resets their counts.
+   *
+   * @param summaries The receiver of the summaries.
+   *
+   * @throws IllegalArgumentException If the receiver is null.
+   */
+  public void flush(Summaries summaries) throws IllegalArgumentException {
+    flush(summaries, false);
+  }
+
+  /**
+   * Hands out the summaries of templates whose suppressed repeats are due, and resets their
+   * counts: those evicted since the last flush, and those whose bucket has refilled enough to let
+   * the next message through, meaning no message with the template has come since their burst
+   * ended. Repeats of templates still being suppressed are left to be summarized by the next
+   * message let through.
+   *
+   * @param summaries The receiver of the summaries.
+   *
+   * @throws IllegalArgumentException If the receiver is null.
+   */
+  public void flushDue(Summaries summaries) throws IllegalArgumentException {
+    flush(summaries, true);
+  }
+
+  private void flush(Summaries summaries, boolean due) throws IllegalArgumentException {
+    Validate.notNull(summaries);
+    for (Evicted e; (e = evicted.poll()) != null; )
+      summaries.summarize(e.key, e.logger, e.level, e.repeats);
+    long now = System.nanoTime();
+    buckets.forEach((key, bucket) -> {
+      if (bucket.pending.get() == 0 || due && ahead(bucket, now) + intervalNanos > limitNanos) return;
+      long repeats = bucket.pending.getAndSet(0);
+      if (repeats > 0) summaries.summarize(key, bucket.logger, bucket.level, repeats);
+    });
+  }
+
+  /**
+   * Gets the summary line logged in place of suppressed repeats.
+   *
+   * @param key     The template or plain message.
+   * @param repeats The number of suppressed repeats.
+   *
+   * @return The summary.
+   */
+  public static String summary(String key, long repeats) {
+    return "Suppressed " + repeats + (repeats == 1 ? " repeat" : " repeats") + " of \"" + key + '"';
+  }
+
+  /**
+   * Gets the total number of messages suppressed by this limiter.
+   *
+   * @return The number of suppressed messages.
+   */
+  public long suppressed() {
+    return suppressed.sum();
+  }
+
+  /**
+   * Gets the number of messages suppressed by this limiter for each template.
+   *
+   * @return A snapshot of suppressed counts, by template.
+   */
+  public Map<String, Long> suppressedByKey() {
+    Map<String, Long> counts = new HashMap<>();
+    buckets.forEach((key, bucket) -> {
+      long count = bucket.suppressed.sum();
+      if (count > 0) counts.put(key, count);
+    });
+    return counts;
+  }
+
+  private static final class Bucket {
+
+    private final AtomicLong arrival = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong pending = new AtomicLong();
+    private final LongAdder suppressed = new LongAdder();
+    private volatile vxLogger logger;
+    private volatile LoggingLevel level;
+
+  }
+
+  private static final class Evicted {
+
+    private final String key;
+    private final vxLogger logger;
+    private final LoggingLevel level;
+    private final long repeats;
+
+    private Evicted(String key, vxLogger logger, LoggingLevel level, long repeats) {
+      this.key = key;
+      this.logger = logger;
+      this.level = level;
+      this.repeats = repeats;
+    }
+
+  }
+
+}
@@ -0,0 +1,122 @@
+package io.vevox.vx.lib.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * A {@link Throwable} attached to a logged message, along with the fingerprint of its stack trace
+ * and how many times that fingerprint has been seen within its {@link StackTraceWindow}.
+ * <p>
+ * The fingerprint is decided when the message is logged, but the trace itself is only rendered
+ * once a transport reads the message, so the cost of formatting it is paid off the logging thread
+ * when delivery is {@link AsyncDispatcher asynchronous}. The first occurrence in a window is
+ * rendered in full; later ones only as a short reference to it and a counter.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class StackTrace {
+
+  private static final int MAX_CAUSES = 16;
+
+  private final Throwable throwable;
+  private final long fingerprint;
+  private final long occurrence;
+
+  StackTrace(Throwable throwable, long fingerprint, long occurrence) {
+    this.throwable = throwable;
+    this.fingerprint = fingerprint;
+    this.occurrence = occurrence;
+  }
+
+  /**
+   * Computes the fingerprint of a throwable's stack trace: a hash of the class and frames of the
+   * throwable and each of its causes. Messages are left out, as they often contain values that
+   * differ between otherwise identical failures.
+   *
+   * @param throwable The throwable.
+   *
+   * @return The fingerprint.
+   */
+  public static long fingerprint(Throwable throwable) {
+    long hash = 0xcbf29ce484222325L;
+    int depth = 0;
+    for (Throwable t = throwable; t != null && depth < MAX_CAUSES; t = t.getCause(), depth++) {
+      hash = mix(hash, t.getClass().getName().hashCode());
+      for (StackTraceElement frame : t.getStackTrace()) {
+        hash = mix(hash, frame.getClassName().hashCode());
+        hash = mix(hash, frame.getMethodName().hashCode());
+        hash = mix(hash, frame.getLineNumber());
+      }
+      if (t.getCause() == t) break;
+    }
+    return hash;
+  }
+
+  private static long mix(long hash, int value) {
+    return (hash ^ value) * 0x100000001b3L;
+  }
+
+  /**
+   * Gets the throwable.
+   *
+   * @return The throwable.
+   */
+  public Throwable throwable() {
+    return throwable;
+  }
+
+  /**
+   * Gets the fingerprint of the throwable's stack trace.
+   *
+   * @return The fingerprint.
+   * @see #fingerprint(Throwable)
+   */
+  public long fingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Gets the fingerprint as the short reference used when rendering.
+   *
+   * @return The reference, as eight hexadecimal digits.
+   */
+  public String reference() {
+    String hex = Long.toHexString(fingerprint ^ fingerprint >>> 32);
+    return hex.length() >= 8 ? hex.substring(hex.length() - 8) : "00000000".substring(hex.length()) + hex;
+  }
+
+  /**
+   * Gets how many times this fingerprint has been seen within the current window, including this
+   * time.
+   *
+   * @return The occurrence, 1 for the first.
+   */
+  public long occurrence() {
+    return occurrence;
+  }
+
+  /**
+   * Appends this trace to a message: in full on a new line the first time it is seen within the
+   * window, or as a reference to that and a counter afterwards.
+   *
+   * @param out The builder to append to.
+   *
+   * @return The builder.
+   */
+  public StringBuilder render(StringBuilder out) {
+    out.append(" [trace ").append(reference());
+    if (occurrence > 1) {
+      return out.append(": ").append(throwable.getClass().getName()).append(", seen ").append(occurrence)
+          .append(" times]");
+    }
+
+    StringWriter trace = new StringWriter();
+    throwable.printStackTrace(new PrintWriter(trace));
+    int end = trace.getBuffer().length();
+    while (end > 0 && Character.isWhitespace(trace.getBuffer().charAt(end - 1))) end--;
+    return out.append("]\n").append(trace.getBuffer(), 0, end);
+  }
+
+}
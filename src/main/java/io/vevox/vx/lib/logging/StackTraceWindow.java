@@ -0,0 +1,97 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how many times each {@link StackTrace#fingerprint(Throwable) stack trace fingerprint} is
+ * logged within a time window, so that repeated exceptions are rendered in full only once per
+ * window. Set on a logger with {@link vxLogger#traces(StackTraceWindow)}.
+ * <p>
+ * At most {@link #MAX_FINGERPRINTS} fingerprints are tracked; when full, expired windows are
+ * discarded, and if none have expired, every fingerprint starts over.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class StackTraceWindow {
+
+  public static final long DEFAULT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+  public static final int MAX_FINGERPRINTS = 1024;
+
+  /**
+   * The window used by loggers that do not set their own.
+   */
+  public static final StackTraceWindow DEFAULT = new StackTraceWindow(DEFAULT_WINDOW_MILLIS);
+
+  private static final class Seen {
+
+    private final long start;
+    private final AtomicLong count = new AtomicLong(1);
+
+    private Seen(long start) {
+      this.start = start;
+    }
+
+  }
+
+  private final long windowMillis;
+  private final ConcurrentHashMap<Long, Seen> seen = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new window.
+   *
+   * @param windowMillis The length of the window, in milliseconds, after the first occurrence of a
+   *                     fingerprint during which it is not rendered in full again.
+   *
+   * @throws IllegalArgumentException If the length is negative.
+   */
+  public StackTraceWindow(long windowMillis) throws IllegalArgumentException {
+    Validate.isTrue(windowMillis >= 0, "Window cannot be negative");
+    this.windowMillis = windowMillis;
+  }
+
+  /**
+   * Gets the length of the window.
+   *
+   * @return The length, in milliseconds.
+   */
+  public long windowMillis() {
+    return windowMillis;
+  }
+
+  /**
+   * Fingerprints a throwable and records an occurrence of it.
+   *
+   * @param throwable The throwable.
+   *
+   * @return The stack trace to attach to a message.
+   */
+  StackTrace record(Throwable throwable) {
+    long fingerprint = StackTrace.fingerprint(throwable);
+    return new StackTrace(throwable, fingerprint, occurrence(fingerprint, System.currentTimeMillis()));
+  }
+
+  private long occurrence(long fingerprint, long now) {
+    Long key = fingerprint;
+    while (true) {
+      Seen current = seen.get(key);
+      if (current != null && now - current.start < windowMillis) return current.count.incrementAndGet();
+
+      if (current == null && seen.size() >= MAX_FINGERPRINTS) purge(now);
+      Seen fresh = new Seen(now);
+      if (current == null ? seen.putIfAbsent(key, fresh) == null : seen.replace(key, current, fresh))
+        return 1;
+    }
+  }
+
+  private void purge(long now) {
+    seen.values().removeIf(s -> now - s.start >= windowMillis);
+    if (seen.size() >= MAX_FINGERPRINTS) seen.clear();
+  }
+
+}
@@ -1,5 +1,8 @@
 package io.vevox.vx.lib.logging;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
 /**
  * @author Matthew Struble
  */
@@ -8,28 +11,218 @@ public interface Transport {
 
   /**
    * A message that has been transported from a {@link vxLogger} to a {@link Transport}.
+   * <p>
+   * Messages may be recycled by an {@link AsyncDispatcher} once they have been delivered, so a
+   * transport must not hold on to a message after {@link #receive(TransportedMessage)} returns.
    */
   class TransportedMessage {
 
     /**
      * The level at which this message was transported.
      */
-    public final LoggingLevel level;
+    public LoggingLevel level;
 
     /**
-     * The message contents
+     * The logger that transported this message.
      */
-    public final String message;
+    public vxLogger logger;
 
     /**
-     * The logger that transported this message.
+     * The time, in milliseconds since the epoch, at which this message was logged.
+     */
+    public long time;
+
+    /**
+     * The message contents.
+     *
+     * @deprecated Use {@link #message()}. Messages logged with a {@link #template() template} or a
+     * {@link #stackTrace() stack trace} are rendered lazily; this is filled once they are, which
+     * loggers do before handing them to any transport other than a {@link TransportBinary}.
      */
-    public final vxLogger logger;
+    @Deprecated
+    public String message;
+
+    private String text;
+    private MessageTemplate template;
+    private Object[] args;
+    private StackTrace trace;
+
+    private String[] fieldKeys;
+    private Object[] fieldValues;
+    private int fieldCount;
 
     protected TransportedMessage(String message, vxLogger logger, LoggingLevel level) {
+      set(message, logger, level, System.currentTimeMillis());
+    }
+
+    TransportedMessage(MessageTemplate template, Object[] args, vxLogger logger, LoggingLevel level) {
+      set(template, args, logger, level, System.currentTimeMillis());
+    }
+
+    TransportedMessage set(String message, vxLogger logger, LoggingLevel level, long time) {
+      return set(message, null, null, logger, level, time);
+    }
+
+    TransportedMessage set(MessageTemplate template, Object[] args, vxLogger logger,
+                           LoggingLevel level, long time) {
+      return set(null, template, args, logger, level, time);
+    }
+
+    private TransportedMessage set(String message, MessageTemplate template, Object[] args,
+                                   vxLogger logger, LoggingLevel level, long time) {
       this.level = level;
+      this.text = message;
       this.message = message;
+      this.template = template;
+      this.args = args;
+      this.trace = null;
       this.logger = logger;
+      this.time = time;
+      return this;
+    }
+
+    TransportedMessage trace(@Nullable StackTrace trace) {
+      this.trace = trace;
+      if (trace != null) message = null;
+      return this;
+    }
+
+    /**
+     * Replaces the fields of this message with the {@link LogContext context} of the current
+     * thread followed by the given fields. Arrays are kept and reused when messages are recycled.
+     */
+    TransportedMessage fields(@Nullable String[] keys, @Nullable Object[] values, int count) {
+      if (fieldCount > 0) {
+        Arrays.fill(fieldValues, 0, fieldCount, null);
+        fieldCount = 0;
+      }
+      LogContext.copyTo(this);
+      for (int i = 0; i < count; i++)
+        addField(keys[i], values[i]);
+      return this;
+    }
+
+    void addField(String key, Object value) {
+      if (fieldKeys == null) {
+        fieldKeys = new String[4];
+        fieldValues = new Object[4];
+      } else if (fieldCount == fieldKeys.length) {
+        fieldKeys = Arrays.copyOf(fieldKeys, fieldCount * 2);
+        fieldValues = Arrays.copyOf(fieldValues, fieldCount * 2);
+      }
+      fieldKeys[fieldCount] = key;
+      fieldValues[fieldCount++] = value;
+    }
+
+    /**
+     * Gets the number of structured fields attached to this message, from the thread's
+     * {@link LogContext} and from the {@link LogEvent} it was logged with, in that order.
+     *
+     * @return The number of fields.
+     * @since 0.2.0-m1.10.2
+     */
+    public int fieldCount() {
+      return fieldCount;
+    }
+
+    /**
+     * Gets the key of a field.
+     *
+     * @param index The index of the field, below {@link #fieldCount()}.
+     *
+     * @return The key.
+     * @since 0.2.0-m1.10.2
+     */
+    public String fieldKey(int index) {
+      if (index >= fieldCount) throw new IndexOutOfBoundsException(String.valueOf(index));
+      return fieldKeys[index];
+    }
+
+    /**
+     * Gets the value of a field.
+     *
+     * @param index The index of the field, below {@link #fieldCount()}.
+     *
+     * @return The value, which may be null.
+     * @since 0.2.0-m1.10.2
+     */
+    @Nullable
+    public Object fieldValue(int index) {
+      if (index >= fieldCount) throw new IndexOutOfBoundsException(String.valueOf(index));
+      return fieldValues[index];
+    }
+
+    /**
+     * Gets the value of a field by key. If several fields share the key, the last one wins.
+     *
+     * @param key The key.
+     *
+     * @return The value, or null if there is no such field.
+     * @since 0.2.0-m1.10.2
+     */
+    @Nullable
+    public Object field(String key) {
+      for (int i = fieldCount - 1; i >= 0; i--)
+        if (fieldKeys[i].equals(key)) return fieldValues[i];
+      return null;
+    }
+
+    /**
+     * Gets the message contents. Messages logged with a {@link MessageTemplate template} or a
+     * {@link #stackTrace() stack trace} are rendered the first time this is called.
+     *
+     * @return The message contents.
+     */
+    @SuppressWarnings("deprecation")
+    public String message() {
+      String rendered = message;
+      if (rendered == null) {
+        rendered = text != null ? text : template.render(args);
+        if (trace != null) rendered = trace.render(new StringBuilder(rendered)).toString();
+        message = rendered;
+      }
+      return rendered;
+    }
+
+    /**
+     * Gets the text of a message logged as plain text, without its stack trace.
+     *
+     * @return The text, or null if the message was logged with a template.
+     */
+    @Nullable
+    String text() {
+      return text;
+    }
+
+    /**
+     * Gets the stack trace of the throwable this message was logged with. It is included in
+     * {@link #message()}.
+     *
+     * @return The stack trace, or null if the message was logged without a throwable.
+     * @since 0.2.0-m1.10.2
+     */
+    @Nullable
+    public StackTrace stackTrace() {
+      return trace;
+    }
+
+    /**
+     * Gets the template this message was logged with.
+     *
+     * @return The template, or null if the message was logged as plain text.
+     */
+    public MessageTemplate template() {
+      return template;
+    }
+
+    /**
+     * Gets the unformatted arguments of this message's {@link #template() template}. The array
+     * must not be modified.
+     *
+     * @return The arguments, or null if the message was logged as plain text.
+     */
+    public Object[] args() {
+      return args;
     }
 
   }
@@ -37,6 +230,9 @@ public interface Transport {
   /**
    * Fetches and returns the {@link LoggingLevel} of this transport. A setter
    * method is up to the implementing class.
+   * <p>
+   * Loggers sort and cache their transports by level, so a transport whose level changes
+   * should be removed and added again.
    *
    * @return The logging level.
    */
@@ -52,9 +248,45 @@ public interface Transport {
   /**
    * Called when a transport is to receive a specified message. Messages with
    * lesser logging levels will <b>not</b> be sent to this method.
+   * <p>
+   * The message must not be kept after this method returns: an {@link AsyncDispatcher} reuses it
+   * for the messages logged after it. A transport delivering later should copy what it needs,
+   * such as {@link TransportedMessage#message()}, first.
    *
    * @param msg The message to be sent.
    */
   void receive(TransportedMessage msg);
 
+  /**
+   * Called with several messages at once when an {@link AsyncDispatcher} has coalesced them,
+   * so that transports writing to a file, socket or console can do so once per batch. Messages
+   * are in the order they were logged, and are reused once this method returns.
+   * <p>
+   * By default, each message is handed to {@link #receive(TransportedMessage)} in turn.
+   *
+   * @param msgs   The array holding the messages.
+   * @param offset The index of the first message.
+   * @param length The number of messages.
+   *
+   * @since 0.2.0-m1.10.2
+   */
+  default void receiveBatch(TransportedMessage[] msgs, int offset, int length) {
+    for (int i = offset; i < offset + length; i++)
+      receive(msgs[i]);
+  }
+
+  /**
+   * Called when any output buffered by this transport should be written out.
+   *
+   * @since 0.2.0-m1.10.2
+   */
+  default void flush() { }
+
+  /**
+   * Called when this transport will no longer be used, releasing any resources it holds.
+   *
+   * @since 0.2.0-m1.10.2
+   */
+  default void close() { }
+
 }
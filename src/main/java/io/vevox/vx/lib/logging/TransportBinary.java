@@ -0,0 +1,404 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Built-in transport for writing compact binary logs, intended for high-volume debug capture.
+ * Files written by this transport can be turned back into text with {@link BinaryLogDecoder}.
+ * <p>
+ * The file is written through memory-mapped segments of a fixed size. It begins with a header
+ * of the {@link #MAGIC magic number}, the format {@link #VERSION version}, the segment size and
+ * the time the file was started. Records follow, each starting with a tag byte:
+ * <ul>
+ * <li>{@link #TAG_LOGGER}: a varint logger id followed by the logger's name.</li>
+ * <li>{@link #TAG_TEMPLATE}: a varint template id, a kind byte and the template. Templates of
+ * {@link #KIND_TEXT} are plain message text, while {@link #KIND_PLACEHOLDER} templates are
+ * {@link MessageTemplate}s rendered with the message's arguments.</li>
+ * <li>{@link #TAG_MESSAGE}: the zigzag varint time delta from the previous record, the
+ * {@link LoggingLevel} ordinal, the varint logger and template ids, a varint argument count and
+ * the arguments, then a varint field count and the fields.</li>
+ * <li>{@link #TAG_LITERAL}: as a message, but with the text inline instead of a template id,
+ * used once the template table is full.</li>
+ * </ul>
+ * Each structured field is written as a varint key reference followed by the value. The
+ * reference is one more than the id of the key in the template table, or 0 if the key follows
+ * inline because the table is full.
+ * Strings are written as a varint byte length followed by their UTF-8 bytes. Records never span
+ * segments; a zero tag marks the unused end of a segment. A message whose record would not fit in
+ * a segment is written as a literal record with its text {@link #truncated() truncated} and its
+ * fields left out.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class TransportBinary implements Transport {
+
+  static final int MAGIC = 0x56584C42; // "VXLB"
+  static final byte VERSION = 1;
+  static final int HEADER_SIZE = 4 + 1 + 4 + 8;
+
+  static final byte TAG_END = 0, TAG_LOGGER = 1, TAG_TEMPLATE = 2, TAG_MESSAGE = 3, TAG_LITERAL = 4;
+  static final byte KIND_TEXT = 0, KIND_PLACEHOLDER = 1;
+
+  public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+  /**
+   * The maximum number of distinct templates interned per file.
+   */
+  public static final int MAX_TEMPLATES = 4096;
+
+  /**
+   * The longest plain message text, in chars, that will be interned as a template.
+   */
+  public static final int MAX_TEMPLATE_LENGTH = 256;
+
+  private final String name;
+  private final LoggingLevel level;
+  private final File file;
+  private final int segmentSize;
+
+  private final FileChannel channel;
+  private MappedByteBuffer segment;
+  private long segmentStart;
+
+  private final Map<vxLogger, Integer> loggers = new IdentityHashMap<>();
+  private final Map<String, Integer> texts = new HashMap<>();
+  private final Map<String, Integer> templates = new HashMap<>();
+  private String[] argText = new String[8];
+  private String[] fieldText = new String[4];
+  private int[] fieldKeys = new int[4];
+  private long lastTime, truncated;
+  private boolean closed;
+
+  /**
+   * Creates a new binary transport named <code>binary</code> using the
+   * {@link #DEFAULT_SEGMENT_SIZE default segment size}.
+   *
+   * @param level The level of this transport.
+   * @param file  The file to write to. Any existing file is replaced.
+   *
+   * @throws IOException If the file cannot be opened.
+   */
+  public TransportBinary(LoggingLevel level, File file) throws IOException {
+    this("binary", level, file, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Creates a new binary transport.
+   *
+   * @param name        The name of this transport.
+   * @param level       The level of this transport.
+   * @param file        The file to write to. Any existing file is replaced.
+   * @param segmentSize The size, in bytes, of each mapped segment of the file.
+   *
+   * @throws IOException              If the file cannot be opened.
+   * @throws IllegalArgumentException If an argument is null or the segment size is too small.
+   */
+  public TransportBinary(String name, LoggingLevel level, File file, int segmentSize)
+      throws IOException, IllegalArgumentException {
+    Validate.notNull(name);
+    Validate.notNull(level);
+    Validate.notNull(file);
+    Validate.isTrue(segmentSize >= 4096, "Segment size must be at least 4096 bytes");
+    this.name = name;
+    this.level = level;
+    this.file = file.getAbsoluteFile();
+    this.segmentSize = segmentSize;
+
+    channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+
+    lastTime = System.currentTimeMillis();
+    segment.putInt(MAGIC).put(VERSION).putInt(segmentSize).putLong(lastTime);
+  }
+
+  @Override
+  public LoggingLevel level() {
+    return level;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Gets the number of messages too large for a segment, which were written with their text
+   * truncated and without their fields.
+   *
+   * @return The number of truncated messages.
+   */
+  public synchronized long truncated() {
+    return truncated;
+  }
+
+  @Override
+  public synchronized void receive(TransportedMessage msg) {
+    if (closed) return;
+    try {
+      append(msg);
+    } catch (IOException e) {
+      LoggingMetrics.error(this, "write to " + file, e);
+    }
+  }
+
+  @Override
+  public synchronized void receiveBatch(TransportedMessage[] msgs, int offset, int length) {
+    if (closed) return;
+    for (int i = offset; i < offset + length; i++) {
+      try {
+        append(msgs[i]);
+      } catch (IOException e) {
+        LoggingMetrics.error(this, "write to " + file, e);
+      }
+    }
+  }
+
+  private void append(TransportedMessage msg) throws IOException {
+    int loggerId = loggerId(msg.logger);
+    // Stack traces are only kept as part of the rendered text.
+    MessageTemplate template = msg.stackTrace() == null ? msg.template() : null;
+    int templateId = template == null ? templateId(texts, msg.message(), KIND_TEXT)
+        : templateId(templates, template.source, KIND_PLACEHOLDER);
+
+    long delta = msg.time - lastTime;
+    int size = 1 + varintSize(zigzag(delta)) + 1 + varintSize(loggerId), argc = 0;
+    if (templateId < 0) {
+      size += stringSize(msg.message());
+    } else {
+      if (template != null) argc = captureArgs(msg.args());
+      size += varintSize(templateId) + varintSize(argc);
+      for (int i = 0; i < argc; i++) size += stringSize(argText[i]);
+    }
+    int fieldc = captureFields(msg);
+    size += varintSize(fieldc);
+    for (int i = 0; i < fieldc; i++) {
+      size += varintSize(fieldKeys[i]) + stringSize(fieldText[i]);
+      if (fieldKeys[i] == 0) size += stringSize(msg.fieldKey(i));
+    }
+    if (size > segmentSize) {
+      appendTruncated(msg, loggerId, delta, size);
+      return;
+    }
+    reserve(size);
+
+    segment.put(templateId >= 0 ? TAG_MESSAGE : TAG_LITERAL);
+    putVarint(zigzag(delta));
+    segment.put((byte) msg.level.ordinal());
+    putVarint(loggerId);
+    if (templateId >= 0) {
+      putVarint(templateId);
+      putVarint(argc);
+      for (int i = 0; i < argc; i++) {
+        putString(argText[i]);
+        argText[i] = null;
+      }
+    } else {
+      putString(msg.message());
+    }
+    putVarint(fieldc);
+    for (int i = 0; i < fieldc; i++) {
+      putVarint(fieldKeys[i]);
+      if (fieldKeys[i] == 0) putString(msg.fieldKey(i));
+      putString(fieldText[i]);
+      fieldText[i] = null;
+    }
+    lastTime = msg.time;
+  }
+
+  /**
+   * Writes a message too large for a segment as a literal record, its text cut short to fit and
+   * marked as such, and its fields left out.
+   */
+  private void appendTruncated(TransportedMessage msg, int loggerId, long delta, int size) throws IOException {
+    Arrays.fill(argText, null);
+    Arrays.fill(fieldText, null);
+
+    String message = msg.message(), suffix = " [truncated: record of " + size + " bytes exceeds the segment size]";
+    int head = 1 + varintSize(zigzag(delta)) + 1 + varintSize(loggerId) + varintSize(0);
+    int budget = segmentSize - head - varintSize(segmentSize) - utf8Size(suffix);
+    int end = 0;
+    for (int len = message.length(), bytes = 0; end < len; ) {
+      char c = message.charAt(end);
+      int chars = 1, width = c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+      if (Character.isHighSurrogate(c) && end + 1 < len && Character.isLowSurrogate(message.charAt(end + 1))) {
+        chars = 2;
+        width = 4;
+      }
+      if (bytes + width > budget) break;
+      bytes += width;
+      end += chars;
+    }
+    String text = message.substring(0, end) + suffix;
+
+    reserve(head + stringSize(text));
+    segment.put(TAG_LITERAL);
+    putVarint(zigzag(delta));
+    segment.put((byte) msg.level.ordinal());
+    putVarint(loggerId);
+    putString(text);
+    putVarint(0);
+    lastTime = msg.time;
+
+    truncated++;
+    LoggingMetrics.error(this, "write a whole record",
+        new IOException("Record of " + size + " bytes does not fit in a segment of " + segmentSize + " bytes"));
+  }
+
+  private int captureFields(TransportedMessage msg) throws IOException {
+    int count = msg.fieldCount();
+    if (fieldText.length < count) {
+      fieldText = new String[count];
+      fieldKeys = new int[count];
+    }
+    for (int i = 0; i < count; i++) {
+      fieldKeys[i] = templateId(texts, msg.fieldKey(i), KIND_TEXT) + 1;
+      fieldText[i] = MessageTemplate.toString(msg.fieldValue(i));
+    }
+    return count;
+  }
+
+  private int captureArgs(Object[] args) {
+    if (argText.length < args.length) argText = new String[args.length];
+    for (int i = 0; i < args.length; i++)
+      argText[i] = MessageTemplate.toString(args[i]);
+    return args.length;
+  }
+
+  private int loggerId(vxLogger logger) throws IOException {
+    Integer id = loggers.get(logger);
+    if (id != null) return id;
+
+    int next = loggers.size();
+    if (!reserve(1 + varintSize(next) + stringSize(logger.name)))
+      throw new IOException("Logger name does not fit in a segment: " + logger.name);
+    segment.put(TAG_LOGGER);
+    putVarint(next);
+    putString(logger.name);
+    loggers.put(logger, next);
+    return next;
+  }
+
+  private int templateId(Map<String, Integer> table, String template, byte kind) throws IOException {
+    Integer id = table.get(template);
+    if (id != null) return id;
+
+    int next = texts.size() + templates.size();
+    if (next >= MAX_TEMPLATES || kind == KIND_TEXT && template.length() > MAX_TEMPLATE_LENGTH) return -1;
+    if (!reserve(1 + varintSize(next) + 1 + stringSize(template))) return -1;
+    segment.put(TAG_TEMPLATE);
+    putVarint(next);
+    segment.put(kind);
+    putString(template);
+    table.put(template, next);
+    return next;
+  }
+
+  /**
+   * Ensures the current segment has room for a record of the given size, moving on to the next
+   * segment if it does not.
+   *
+   * @param size The size of the record.
+   *
+   * @return False if the record is larger than a segment and can never be written.
+   * @throws IOException If the next segment cannot be mapped.
+   */
+  private boolean reserve(int size) throws IOException {
+    if (segment.remaining() >= size) return true;
+    if (size > segmentSize) return false;
+
+    // The rest of the segment is still zero-filled, which the decoder reads as TAG_END.
+    segmentStart += segmentSize;
+    segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentStart, segmentSize);
+    return true;
+  }
+
+  static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  static int varintSize(long value) {
+    int size = 1;
+    while ((value >>>= 7) != 0) size++;
+    return size;
+  }
+
+  private void putVarint(long value) {
+    while ((value & ~0x7FL) != 0) {
+      segment.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    segment.put((byte) value);
+  }
+
+  static int utf8Size(CharSequence str) {
+    int size = 0;
+    for (int i = 0, len = str.length(); i < len; i++) {
+      char c = str.charAt(i);
+      if (c < 0x80) size++;
+      else if (c < 0x800) size += 2;
+      else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+        size += 4;
+        i++;
+      } else size += 3;
+    }
+    return size;
+  }
+
+  private static int stringSize(CharSequence str) {
+    int size = utf8Size(str);
+    return varintSize(size) + size;
+  }
+
+  private void putString(CharSequence str) {
+    putVarint(utf8Size(str));
+    for (int i = 0, len = str.length(); i < len; i++) {
+      char c = str.charAt(i);
+      if (c < 0x80) {
+        segment.put((byte) c);
+      } else if (c < 0x800) {
+        segment.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+        int cp = Character.toCodePoint(c, str.charAt(++i));
+        segment.put((byte) (0xF0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3F))
+            .put((byte) (0x80 | cp >> 6 & 0x3F)).put((byte) (0x80 | cp & 0x3F));
+      } else {
+        segment.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F))
+            .put((byte) (0x80 | c & 0x3F));
+      }
+    }
+  }
+
+  /**
+   * Forces written records to disk, trims the unused end of the file and closes it.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) return;
+    closed = true;
+    try {
+      segment.force();
+      channel.truncate(segmentStart + segment.position());
+    } catch (IOException e) {
+      // Some platforms cannot truncate a mapped file; the decoder skips the zeroed tail.
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      LoggingMetrics.error(this, "close " + file, e);
+    }
+  }
+
+}
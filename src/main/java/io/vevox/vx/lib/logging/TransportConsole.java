@@ -25,6 +25,27 @@ public class TransportConsole implements Transport {
     BACKSPACES = bs;
   }
 
+  private static final int MAX_RETAINED_CAPACITY = 8192;
+
+  /**
+   * The text following the timestamp for each level, indexed by ordinal.
+   */
+  private static final String[] LEVEL_PREFIXES;
+  private static final String NAME_SUFFIX = ChatColor.RESET + ": ";
+
+  static {
+    LoggingLevel[] levels = LoggingLevel.values();
+    LEVEL_PREFIXES = new String[levels.length];
+    for (LoggingLevel level : levels)
+      LEVEL_PREFIXES[level.ordinal()] = "-" + level.color() + level.toString().toLowerCase() +
+          ChatColor.WHITE + " ";
+  }
+
+  private static final ThreadLocal<StringBuilder> LINE =
+      ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+  private static volatile Timestamp timestamp = new Timestamp(Long.MIN_VALUE, "");
+
   private final LoggingLevel level;
   private final String name;
 
@@ -49,12 +70,81 @@ public class TransportConsole implements Transport {
 
   @Override
   public void receive(TransportedMessage msg) {
-    SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss");
-    Bukkit.getServer().getConsoleSender().sendMessage(BACKSPACES +
-        format.format(new Date()) + '-' +
-        msg.level.color() + msg.level.toString().toLowerCase() +
-        ChatColor.WHITE + " " + msg.logger.name +
-        ChatColor.RESET + ": " + msg.message);
+    send(format(msg));
+  }
+
+  @Override
+  public void receiveBatch(TransportedMessage[] msgs, int offset, int length) {
+    String[] lines = new String[length];
+    for (int i = 0; i < length; i++)
+      lines[i] = format(msgs[offset + i]);
+    send(lines);
+  }
+
+  /**
+   * Formats a message as it is shown in the console.
+   *
+   * @param msg The message.
+   *
+   * @return The formatted line.
+   */
+  protected String format(TransportedMessage msg) {
+    StringBuilder line = LINE.get();
+    line.setLength(0);
+    line.append(BACKSPACES).append(time(msg.time))
+        .append(LEVEL_PREFIXES[msg.level.ordinal()]).append(msg.logger.name)
+        .append(NAME_SUFFIX).append(msg.message());
+
+    String str = line.toString();
+    if (line.capacity() > MAX_RETAINED_CAPACITY) LINE.remove();
+    return str;
+  }
+
+  /**
+   * Sends a formatted line to the console.
+   *
+   * @param line The line.
+   */
+  protected void send(String line) {
+    Bukkit.getServer().getConsoleSender().sendMessage(line);
+  }
+
+  /**
+   * Sends several formatted lines to the console at once. Subclasses overriding
+   * {@link #send(String)} should override this as well.
+   *
+   * @param lines The lines.
+   */
+  protected void send(String[] lines) {
+    Bukkit.getServer().getConsoleSender().sendMessage(lines);
+  }
+
+  /**
+   * Gets the <code>HH:mm:ss</code> time for the given instant. The formatted text is cached and
+   * only recomputed once the second changes.
+   *
+   * @param millis The time, in milliseconds since the epoch.
+   *
+   * @return The formatted time.
+   */
+  private static String time(long millis) {
+    long second = Math.floorDiv(millis, 1000);
+    Timestamp ts = timestamp;
+    if (ts.second != second)
+      timestamp = ts = new Timestamp(second, new SimpleDateFormat("HH:mm:ss").format(new Date(millis)));
+    return ts.text;
+  }
+
+  private static final class Timestamp {
+
+    private final long second;
+    private final String text;
+
+    private Timestamp(long second, String text) {
+      this.second = second;
+      this.text = text;
+    }
+
   }
 
 }
@@ -0,0 +1,386 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Built-in transport for writing output to a rolling log file.
+ * <p>
+ * Each message is written as one line, followed by its structured fields as
+ * <code>key=value</code> pairs.
+ * <p>
+ * Lines are encoded into a direct buffer and written to the file in batches, either when the
+ * buffer fills or every {@link #FLUSH_INTERVAL_MILLIS} milliseconds. The file is rotated once it
+ * grows past a maximum size or a rotation interval elapses; rotated files are gzipped on a
+ * background thread.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class TransportFile implements Transport {
+
+  /**
+   * When written data is forced to the storage device.
+   */
+  public enum Fsync {
+
+    /**
+     * Leave it to the operating system.
+     */
+    NEVER,
+
+    /**
+     * Once after every {@link #receiveBatch batch of messages} is written, and whenever the
+     * transport is flushed.
+     */
+    BATCH,
+
+    /**
+     * Every {@link #FSYNC_INTERVAL_MILLIS} milliseconds.
+     */
+    INTERVAL
+
+  }
+
+  public static final int BUFFER_SIZE = 64 * 1024;
+  public static final long FLUSH_INTERVAL_MILLIS = 1000;
+  public static final long FSYNC_INTERVAL_MILLIS = 5000;
+
+  public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+  public static final long DEFAULT_ROTATE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  private static final int MAX_RETAINED_CAPACITY = 8192;
+
+  private final String name;
+  private final LoggingLevel level;
+  private final File file;
+  private final long maxBytes, rotateMillis;
+  private final Fsync fsync;
+
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private final CharBuffer chars = CharBuffer.allocate(1024);
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private StringBuilder line = new StringBuilder(256);
+
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+  private long cachedSecond = Long.MIN_VALUE;
+  private String cachedDate;
+
+  private final ScheduledThreadPoolExecutor background;
+
+  private FileChannel channel;
+  private long size, nextRotation;
+  private boolean dirty, closed;
+
+  /**
+   * Creates a new file transport named <code>file</code>, rotating at the
+   * {@link #DEFAULT_MAX_BYTES default size} or {@link #DEFAULT_ROTATE_MILLIS daily}, and forcing
+   * writes to disk at an {@link Fsync#INTERVAL interval}.
+   *
+   * @param level The level of this transport.
+   * @param file  The file to write to.
+   *
+   * @throws IOException If the file cannot be opened.
+   */
+  public TransportFile(LoggingLevel level, File file) throws IOException {
+    this("file", level, file, DEFAULT_MAX_BYTES, DEFAULT_ROTATE_MILLIS, Fsync.INTERVAL);
+  }
+
+  /**
+   * Creates a new file transport.
+   *
+   * @param name         The name of this transport.
+   * @param level        The level of this transport.
+   * @param file         The file to write to.
+   * @param maxBytes     The size, in bytes, after which the file is rotated, or 0 to never rotate
+   *                     by size.
+   * @param rotateMillis The interval, in milliseconds, after which the file is rotated, or 0 to
+   *                     never rotate by time.
+   * @param fsync        When written data is forced to disk.
+   *
+   * @throws IOException              If the file cannot be opened.
+   * @throws IllegalArgumentException If an argument is null or negative.
+   */
+  public TransportFile(String name, LoggingLevel level, File file, long maxBytes, long rotateMillis,
+                       Fsync fsync) throws IOException, IllegalArgumentException {
+    Validate.notNull(name);
+    Validate.notNull(level);
+    Validate.notNull(file);
+    Validate.notNull(fsync);
+    Validate.isTrue(maxBytes >= 0, "Maximum size cannot be negative");
+    Validate.isTrue(rotateMillis >= 0, "Rotation interval cannot be negative");
+    this.name = name;
+    this.level = level;
+    this.file = file.getAbsoluteFile();
+    this.maxBytes = maxBytes;
+    this.rotateMillis = rotateMillis;
+    this.fsync = fsync;
+
+    File dir = this.file.getParentFile();
+    if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+      throw new IOException("Cannot create directory " + dir);
+    open(System.currentTimeMillis());
+
+    background = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread thread = new Thread(r, "vxLogger-file-" + name);
+      thread.setDaemon(true);
+      return thread;
+    });
+    background.scheduleWithFixedDelay(this::flush,
+        FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    if (fsync == Fsync.INTERVAL)
+      background.scheduleWithFixedDelay(this::force,
+          FSYNC_INTERVAL_MILLIS, FSYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public LoggingLevel level() {
+    return level;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Gets the file currently being written to.
+   *
+   * @return The file.
+   */
+  public File file() {
+    return file;
+  }
+
+  @Override
+  public synchronized void receive(TransportedMessage msg) {
+    if (closed) return;
+    try {
+      append(msg);
+    } catch (IOException e) {
+      LoggingMetrics.error(this, "write to " + file, e);
+    }
+  }
+
+  @Override
+  public synchronized void receiveBatch(TransportedMessage[] msgs, int offset, int length) {
+    if (closed) return;
+    try {
+      for (int i = offset; i < offset + length; i++)
+        append(msgs[i]);
+      if (fsync == Fsync.BATCH) sync();
+    } catch (IOException e) {
+      LoggingMetrics.error(this, "write to " + file, e);
+    }
+  }
+
+  private void append(TransportedMessage msg) throws IOException {
+    if (rotateMillis > 0 && msg.time >= nextRotation) rotate(msg.time);
+    format(msg);
+    encode();
+    if (maxBytes > 0 && size + buffer.position() >= maxBytes) rotate(msg.time);
+  }
+
+  private void format(TransportedMessage msg) {
+    long second = Math.floorDiv(msg.time, 1000);
+    if (second != cachedSecond) {
+      cachedSecond = second;
+      cachedDate = dateFormat.format(new Date(msg.time));
+    }
+    int millis = (int) Math.floorMod(msg.time, 1000);
+
+    if (line.capacity() > MAX_RETAINED_CAPACITY) line = new StringBuilder(256);
+    line.setLength(0);
+    line.append(cachedDate).append('.')
+        .append((char) ('0' + millis / 100)).append((char) ('0' + millis / 10 % 10))
+        .append((char) ('0' + millis % 10)).append(' ')
+        .append(msg.level).append(' ').append(msg.logger.name).append(": ")
+        .append(msg.message());
+    for (int i = 0, count = msg.fieldCount(); i < count; i++)
+      appendField(line, msg.fieldKey(i), MessageTemplate.toString(msg.fieldValue(i)));
+    line.append('\n');
+  }
+
+  /**
+   * Appends a structured field as <code> key=value</code>, quoting and escaping the value as a
+   * JSON string if it is empty or contains spaces, quotes, equals signs or control characters.
+   */
+  static StringBuilder appendField(StringBuilder out, String key, String value) {
+    out.append(' ').append(key).append('=');
+    boolean quote = value.isEmpty();
+    for (int i = 0, len = value.length(); i < len && !quote; i++) {
+      char c = value.charAt(i);
+      quote = c <= ' ' || c == '"' || c == '=';
+    }
+    return quote ? JsonFormat.appendString(out, value) : out.append(value);
+  }
+
+  private void encode() throws IOException {
+    int offset = 0, length = line.length();
+    chars.clear();
+    while (true) {
+      int count = Math.min(chars.remaining(), length - offset);
+      line.getChars(offset, offset + count, chars.array(), chars.arrayOffset() + chars.position());
+      chars.position(chars.position() + count);
+      offset += count;
+      chars.flip();
+
+      boolean end = offset >= length;
+      while (encoder.encode(chars, buffer, end).isOverflow()) drain();
+      chars.compact();
+      if (end) break;
+    }
+    while (encoder.flush(buffer).isOverflow()) drain();
+    encoder.reset();
+    dirty = true;
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) size += channel.write(buffer);
+    buffer.clear();
+  }
+
+  private void sync() throws IOException {
+    drain();
+    channel.force(false);
+    dirty = false;
+  }
+
+  @Override
+  public synchronized void flush() {
+    if (closed || buffer.position() == 0 && !(fsync == Fsync.BATCH && dirty)) return;
+    try {
+      if (fsync == Fsync.BATCH) sync();
+      else drain();
+    } catch (IOException e) {
+      LoggingMetrics.error(this, "write to " + file, e);
+    }
+  }
+
+  private synchronized void force() {
+    if (closed || !dirty) return;
+    try {
+      sync();
+    } catch (IOException e) {
+      LoggingMetrics.error(this, "sync " + file, e);
+    }
+  }
+
+  /**
+   * Runs a task on the background thread of this transport, unless it is closed.
+   *
+   * @param task The task.
+   *
+   * @return The future of the task, or null if this transport is closed.
+   */
+  @Nullable
+  Future<?> execute(Runnable task) {
+    try {
+      return background.submit(task);
+    } catch (RejectedExecutionException e) {
+      // Closed; the task has nothing left to write to
+      return null;
+    }
+  }
+
+  private void open(long now) throws IOException {
+    channel = FileChannel.open(file.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    size = channel.size();
+    nextRotation = rotateMillis > 0 ? (Math.floorDiv(now, rotateMillis) + 1) * rotateMillis : Long.MAX_VALUE;
+  }
+
+  private void rotate(long now) throws IOException {
+    drain();
+    if (fsync != Fsync.NEVER) channel.force(false);
+    channel.close();
+    dirty = false;
+
+    if (size > 0) {
+      File rotated = rotatedFile(now);
+      if (file.renameTo(rotated)) background.execute(() -> compress(rotated));
+    }
+    open(now);
+  }
+
+  private File rotatedFile(long now) {
+    String fileName = file.getName(), base = fileName, ext = "";
+    int dot = fileName.lastIndexOf('.');
+    if (dot > 0) {
+      base = fileName.substring(0, dot);
+      ext = fileName.substring(dot);
+    }
+    String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(now));
+
+    File rotated = new File(file.getParentFile(), base + '-' + stamp + ext);
+    for (int i = 1; rotated.exists() || new File(rotated.getPath() + ".gz").exists(); i++)
+      rotated = new File(file.getParentFile(), base + '-' + stamp + '-' + i + ext);
+    return rotated;
+  }
+
+  private void compress(File source) {
+    File target = new File(source.getPath() + ".gz");
+    try (InputStream in = new FileInputStream(source);
+         OutputStream out = new GZIPOutputStream(new FileOutputStream(target), BUFFER_SIZE)) {
+      byte[] bytes = new byte[BUFFER_SIZE];
+      for (int read; (read = in.read(bytes)) >= 0; )
+        out.write(bytes, 0, read);
+    } catch (IOException e) {
+      LoggingMetrics.error(this, "compress " + source, e);
+      if (!target.delete()) target.deleteOnExit();
+      return;
+    }
+    if (!source.delete()) source.deleteOnExit();
+  }
+
+  /**
+   * Writes out any buffered output, closes the file and waits for pending compression to finish.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) return;
+      try {
+        drain();
+        if (fsync != Fsync.NEVER) channel.force(false);
+        channel.close();
+      } catch (IOException e) {
+        LoggingMetrics.error(this, "close " + file, e);
+      }
+      closed = true;
+    }
+
+    background.shutdown();
+    try {
+      background.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,147 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.Arrays;
+
+/**
+ * Wraps another transport, passing its messages through a {@link RateLimiter} first. Messages
+ * are limited by their template, or by their text, without any stack trace, if they were not
+ * logged with one. Batches stay batches: the messages let through are handed on together.
+ * <p>
+ * Summaries of suppressed repeats are delivered ahead of the next message let through with the
+ * same template. Those of templates that stopped coming are
+ * {@link RateLimiter#flushDue(RateLimiter.Summaries) delivered} along with other messages, checked
+ * at most every {@link AsyncDispatcher#SUMMARY_INTERVAL_MILLIS} milliseconds, and when this
+ * transport is flushed.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class TransportLimited implements Transport {
+
+  private final Transport transport;
+  private final RateLimiter limiter;
+
+  /**
+   * The messages let through by the current call, guarded by this transport's lock.
+   */
+  private TransportedMessage[] admitted = new TransportedMessage[16];
+  private int admittedCount;
+  private long nextSummary;
+
+  /**
+   * Creates a new rate-limited transport.
+   *
+   * @param transport The transport to deliver messages to.
+   * @param limiter   The limiter to pass messages through.
+   *
+   * @throws IllegalArgumentException If an argument is null.
+   */
+  public TransportLimited(Transport transport, RateLimiter limiter) throws IllegalArgumentException {
+    Validate.notNull(transport);
+    Validate.notNull(limiter);
+    this.transport = transport;
+    this.limiter = limiter;
+  }
+
+  /**
+   * Gets the limiter messages are passed through.
+   *
+   * @return The limiter.
+   */
+  public RateLimiter limiter() {
+    return limiter;
+  }
+
+  @Override
+  public LoggingLevel level() {
+    return transport.level();
+  }
+
+  @Override
+  public String name() {
+    return transport.name();
+  }
+
+  @Override
+  public synchronized void receive(TransportedMessage msg) {
+    summarizeDue(msg.time);
+    admit(msg);
+    deliver();
+  }
+
+  @Override
+  public synchronized void receiveBatch(TransportedMessage[] msgs, int offset, int length) {
+    if (length > 0) summarizeDue(msgs[offset].time);
+    for (int i = offset; i < offset + length; i++)
+      admit(msgs[i]);
+    deliver();
+  }
+
+  /**
+   * Delivers the summaries of suppressed repeats that are still pending, then flushes the wrapped
+   * transport.
+   */
+  @Override
+  public synchronized void flush() {
+    limiter.flush(this::summarize);
+    deliver();
+    transport.flush();
+  }
+
+  /**
+   * Passes a message through the limiter, queueing it to be delivered, preceded by the summary of
+   * any repeats suppressed before it.
+   */
+  private void admit(TransportedMessage msg) {
+    MessageTemplate template = msg.template();
+    String key = template == null ? msg.text() : template.source;
+
+    long repeats = limiter.acquire(key, msg.logger, msg.level);
+    if (repeats < 0) return;
+    if (repeats > 0) {
+      TransportedMessage summary = new TransportedMessage(RateLimiter.summary(key, repeats), msg.logger, msg.level);
+      summary.time = msg.time;
+      queue(summary);
+    }
+    queue(msg);
+  }
+
+  private void summarizeDue(long now) {
+    if (now < nextSummary) return;
+    nextSummary = now + AsyncDispatcher.SUMMARY_INTERVAL_MILLIS;
+    limiter.flushDue(this::summarize);
+  }
+
+  private void summarize(String key, vxLogger logger, LoggingLevel level, long repeats) {
+    queue(new TransportedMessage(RateLimiter.summary(key, repeats), logger == null ? vxLogger.root() : logger,
+        level == null ? LoggingLevel.INFO : level));
+  }
+
+  private void queue(TransportedMessage msg) {
+    if (admittedCount == admitted.length) admitted = Arrays.copyOf(admitted, admittedCount * 2);
+    admitted[admittedCount++] = msg;
+  }
+
+  /**
+   * Hands the queued messages to the wrapped transport, and forgets them, as they may be recycled.
+   */
+  private void deliver() {
+    int count = admittedCount;
+    admittedCount = 0;
+    try {
+      if (count == 1) transport.receive(admitted[0]);
+      else if (count > 1) transport.receiveBatch(admitted, 0, count);
+    } finally {
+      Arrays.fill(admitted, 0, count, null);
+    }
+  }
+
+  @Override
+  public void close() {
+    transport.close();
+  }
+
+}
@@ -0,0 +1,199 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Built-in transport keeping the most recent messages in memory, so they can be tailed and
+ * searched in game without reading log files.
+ * <p>
+ * Messages are kept in a fixed-size circular buffer of parallel arrays holding the level
+ * ordinal, the time, the logger and either the message text or its template and arguments.
+ * Nothing is rendered or copied when a message is received; templated messages are only rendered
+ * when they are returned from a query. Arguments are kept by reference until overwritten.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class TransportMemory implements Transport {
+
+  /**
+   * A message returned from a query.
+   */
+  public static final class Entry {
+
+    /**
+     * The time, in milliseconds since the epoch, at which the message was logged.
+     */
+    public final long time;
+
+    /**
+     * The level of the message.
+     */
+    public final LoggingLevel level;
+
+    /**
+     * The name of the logger the message was logged to.
+     */
+    public final String logger;
+
+    /**
+     * The message contents.
+     */
+    public final String message;
+
+    private Entry(long time, LoggingLevel level, String logger, String message) {
+      this.time = time;
+      this.level = level;
+      this.logger = logger;
+      this.message = message;
+    }
+
+  }
+
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private static final LoggingLevel[] LEVELS = LoggingLevel.values();
+
+  private final String name;
+  private final LoggingLevel level;
+
+  private final long[] times;
+  private final byte[] levels;
+  private final vxLogger[] loggers;
+  private final String[] messages;
+  private final MessageTemplate[] templates;
+  private final Object[][] args;
+
+  private long written;
+
+  /**
+   * Creates a new memory transport named <code>memory</code> holding the
+   * {@link #DEFAULT_CAPACITY default number} of messages.
+   *
+   * @param level The level of this transport.
+   */
+  public TransportMemory(LoggingLevel level) {
+    this("memory", level, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a new memory transport.
+   *
+   * @param name     The name of this transport.
+   * @param level    The level of this transport.
+   * @param capacity The number of messages to keep.
+   *
+   * @throws IllegalArgumentException If the name or level is null, or the capacity is not
+   *                                  positive.
+   */
+  public TransportMemory(String name, LoggingLevel level, int capacity) throws IllegalArgumentException {
+    Validate.notNull(name);
+    Validate.notNull(level);
+    Validate.isTrue(capacity > 0, "Capacity must be positive");
+    this.name = name;
+    this.level = level;
+
+    times = new long[capacity];
+    levels = new byte[capacity];
+    loggers = new vxLogger[capacity];
+    messages = new String[capacity];
+    templates = new MessageTemplate[capacity];
+    args = new Object[capacity][];
+  }
+
+  @Override
+  public LoggingLevel level() {
+    return level;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Gets the number of messages this transport keeps.
+   *
+   * @return The capacity.
+   */
+  public int capacity() {
+    return times.length;
+  }
+
+  @Override
+  public synchronized void receive(TransportedMessage msg) {
+    store(msg);
+  }
+
+  @Override
+  public synchronized void receiveBatch(TransportedMessage[] msgs, int offset, int length) {
+    for (int i = offset; i < offset + length; i++)
+      store(msgs[i]);
+  }
+
+  private void store(TransportedMessage msg) {
+    int index = (int) (written++ % times.length);
+    times[index] = msg.time;
+    levels[index] = (byte) msg.level.ordinal();
+    loggers[index] = msg.logger;
+    templates[index] = msg.stackTrace() == null ? msg.template() : null;
+    if (templates[index] == null) {
+      messages[index] = msg.message();
+      args[index] = null;
+    } else {
+      messages[index] = null;
+      args[index] = msg.args();
+    }
+  }
+
+  /**
+   * Gets the most recent messages.
+   *
+   * @param limit The maximum number of messages to return.
+   *
+   * @return The messages, oldest first.
+   */
+  public List<Entry> tail(int limit) {
+    return query(null, null, Long.MIN_VALUE, Long.MAX_VALUE, limit);
+  }
+
+  /**
+   * Gets the most recent messages matching the given filters.
+   *
+   * @param minimum The lowest level to return, or null for every level.
+   * @param prefix  The prefix logger names must start with, or null for every logger.
+   * @param from    The earliest time to return, in milliseconds since the epoch.
+   * @param to      The latest time to return, in milliseconds since the epoch.
+   * @param limit   The maximum number of messages to return.
+   *
+   * @return The messages, oldest first.
+   */
+  public List<Entry> query(@Nullable LoggingLevel minimum, @Nullable String prefix, long from, long to,
+                           int limit) {
+    int minOrdinal = minimum == null ? 0 : minimum.ordinal();
+    List<Entry> entries = new ArrayList<>(Math.min(Math.max(limit, 0), times.length));
+
+    synchronized (this) {
+      long oldest = Math.max(0, written - times.length);
+      for (long seq = written - 1; seq >= oldest && entries.size() < limit; seq--) {
+        int index = (int) (seq % times.length);
+        if (levels[index] < minOrdinal || times[index] < from || times[index] > to) continue;
+        String logger = loggers[index].name;
+        if (prefix != null && !logger.startsWith(prefix)) continue;
+
+        String message = templates[index] == null ? messages[index] : templates[index].render(args[index]);
+        entries.add(new Entry(times[index], LEVELS[levels[index]], logger, message));
+      }
+    }
+
+    Collections.reverse(entries);
+    return entries;
+  }
+
+}
@@ -0,0 +1,511 @@
+package io.vevox.vx.lib.logging;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in transport for shipping messages to a central collector over the network.
+ * <p>
+ * Messages are written as {@link JsonFormat JSON} frames into a bounded local buffer, and sent
+ * by a background thread over a non-blocking TCP {@link SocketChannel} or UDP
+ * {@link DatagramChannel}, so receiving a message never waits on the network. Frames are either
+ * {@link Framing#NDJSON newline-delimited} or {@link Framing#LENGTH_PREFIXED length-prefixed}.
+ * While the collector is unreachable, messages accumulate in the buffer until it is full and are
+ * then dropped; the connection is retried with exponential backoff, resolving the collector's
+ * host name again on every attempt. A TCP connection not established within
+ * {@link #CONNECT_TIMEOUT_MILLIS} is given up on and retried.
+ * <p>
+ * Over UDP, as many whole frames as fit are packed into each datagram of up to
+ * {@link #DATAGRAM_SIZE} bytes; frames larger than that are dropped rather than sent as datagrams
+ * that would be fragmented.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class TransportSocket implements Transport {
+
+  /**
+   * The transport protocol used to reach the collector.
+   */
+  public enum Protocol {
+    TCP, UDP
+  }
+
+  /**
+   * How messages are delimited on the wire.
+   */
+  public enum Framing {
+
+    /**
+     * Each message is a JSON object followed by a line feed.
+     */
+    NDJSON,
+
+    /**
+     * Each message is a JSON object preceded by its length in bytes, as a big-endian 32 bit
+     * integer.
+     */
+    LENGTH_PREFIXED
+
+  }
+
+  public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+  public static final int DATAGRAM_SIZE = 8192;
+
+  public static final long MIN_BACKOFF_MILLIS = 100;
+  public static final long MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+  public static final long CONNECT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+  public static final long CLOSE_TIMEOUT_MILLIS = 1000;
+
+  private static final int MAX_RETAINED_CAPACITY = 8192;
+
+  private final String name;
+  private final LoggingLevel level;
+  private final InetSocketAddress address;
+  private final Protocol protocol;
+  private final Framing framing;
+
+  /**
+   * Frames waiting to be sent, in write mode, guarded by this transport's lock. Swapped with
+   * {@link #sending} by the network thread whenever that has been fully written.
+   */
+  private ByteBuffer pending;
+  private ByteBuffer sending;
+  private final ByteBuffer datagram;
+
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private StringBuilder line = new StringBuilder(256);
+  private char[] lineChars = new char[256];
+  private CharBuffer lineBuffer = CharBuffer.wrap(lineChars);
+
+  private final Selector selector;
+  private final Thread thread;
+  private volatile boolean running = true, connected;
+
+  private ByteChannel channel;
+  private SelectionKey key;
+  private long backoff = MIN_BACKOFF_MILLIS, nextAttempt, connectDeadline;
+
+  private final LongAdder queued = new LongAdder(), dropped = new LongAdder(), bytesSent = new LongAdder(),
+      connections = new LongAdder(), failures = new LongAdder();
+
+  /**
+   * Creates a new socket transport named <code>socket</code>, sending newline-delimited JSON
+   * over TCP with a {@link #DEFAULT_BUFFER_SIZE default buffer}.
+   *
+   * @param level   The level of this transport.
+   * @param address The address of the collector.
+   *
+   * @throws IOException If the network thread cannot be started.
+   */
+  public TransportSocket(LoggingLevel level, InetSocketAddress address) throws IOException {
+    this("socket", level, address, Protocol.TCP, Framing.NDJSON, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a new socket transport. The collector is connected to in the background; messages
+   * received before then are buffered.
+   *
+   * @param name        The name of this transport.
+   * @param level       The level of this transport.
+   * @param address     The address of the collector.
+   * @param protocol    The protocol to send with.
+   * @param framing     How messages are delimited.
+   * @param bufferBytes The number of bytes of messages buffered while the collector is slow or
+   *                    unreachable.
+   *
+   * @throws IOException              If the network thread cannot be started.
+   * @throws IllegalArgumentException If an argument is null or the buffer size is not positive.
+   */
+  public TransportSocket(String name, LoggingLevel level, InetSocketAddress address, Protocol protocol,
+                         Framing framing, int bufferBytes) throws IOException, IllegalArgumentException {
+    Validate.notNull(name);
+    Validate.notNull(level);
+    Validate.notNull(address);
+    Validate.notNull(protocol);
+    Validate.notNull(framing);
+    Validate.isTrue(bufferBytes > 0, "Buffer size must be positive");
+    this.name = name;
+    this.level = level;
+    this.address = address;
+    this.protocol = protocol;
+    this.framing = framing;
+
+    // Half of the buffer is filled while the other half is being sent.
+    pending = ByteBuffer.allocateDirect(Math.max(bufferBytes / 2, 64));
+    sending = ByteBuffer.allocateDirect(pending.capacity());
+    sending.flip();
+    datagram = protocol == Protocol.UDP ? ByteBuffer.allocateDirect(DATAGRAM_SIZE) : null;
+
+    selector = Selector.open();
+    thread = new Thread(this::run, "vxLogger-socket-" + name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public LoggingLevel level() {
+    return level;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Gets the address of the collector.
+   *
+   * @return The address.
+   */
+  public InetSocketAddress address() {
+    return address;
+  }
+
+  /**
+   * Gets whether the collector is currently connected.
+   *
+   * @return True if connected.
+   */
+  public boolean connected() {
+    return connected;
+  }
+
+  /**
+   * Gets the number of messages accepted into the buffer.
+   *
+   * @return The number of messages.
+   */
+  public long queued() {
+    return queued.sum();
+  }
+
+  /**
+   * Gets the number of messages dropped, because the buffer was full, a frame was too large for
+   * a datagram or the connection was lost part way through it.
+   *
+   * @return The number of messages.
+   */
+  public long dropped() {
+    return dropped.sum();
+  }
+
+  /**
+   * Gets the number of bytes written to the network.
+   *
+   * @return The number of bytes.
+   */
+  public long bytesSent() {
+    return bytesSent.sum();
+  }
+
+  /**
+   * Gets the number of connections established to the collector, including the first.
+   *
+   * @return The number of connections.
+   */
+  public long connections() {
+    return connections.sum();
+  }
+
+  /**
+   * Gets the number of failed connection attempts and lost connections.
+   *
+   * @return The number of failures.
+   */
+  public long failures() {
+    return failures.sum();
+  }
+
+  /**
+   * Gets the number of bytes waiting to be sent.
+   *
+   * @return The number of bytes.
+   */
+  public synchronized int buffered() {
+    return pending.position() + sending.remaining();
+  }
+
+  @Override
+  public synchronized void receive(TransportedMessage msg) {
+    if (!running) return;
+    boolean wasEmpty = pending.position() == 0;
+    append(msg);
+    if (wasEmpty && pending.position() > 0) selector.wakeup();
+  }
+
+  @Override
+  public synchronized void receiveBatch(TransportedMessage[] msgs, int offset, int length) {
+    if (!running) return;
+    boolean wasEmpty = pending.position() == 0;
+    for (int i = offset; i < offset + length; i++)
+      append(msgs[i]);
+    if (wasEmpty && pending.position() > 0) selector.wakeup();
+  }
+
+  /**
+   * Encodes a message as a frame at the end of the pending buffer, dropping it if it does not fit
+   * or is too large for a datagram.
+   */
+  private void append(TransportedMessage msg) {
+    if (line.capacity() > MAX_RETAINED_CAPACITY) line = new StringBuilder(256);
+    line.setLength(0);
+    JsonFormat.append(line, msg);
+    if (framing == Framing.NDJSON) line.append('\n');
+
+    int length = line.length();
+    if (lineChars.length < length) {
+      lineChars = new char[Math.max(length, lineChars.length * 2)];
+      lineBuffer = CharBuffer.wrap(lineChars);
+    }
+    line.getChars(0, length, lineChars, 0);
+    lineBuffer.limit(length).position(0);
+
+    int start = pending.position();
+    boolean fits;
+    if (framing == Framing.LENGTH_PREFIXED) {
+      fits = pending.remaining() >= 4;
+      if (fits) {
+        pending.position(start + 4);
+        fits = !encoder.encode(lineBuffer, pending, true).isOverflow();
+        if (fits) pending.putInt(start, pending.position() - start - 4);
+      }
+    } else {
+      fits = !encoder.encode(lineBuffer, pending, true).isOverflow();
+    }
+    encoder.reset();
+    if (datagram != null && pending.position() - start > DATAGRAM_SIZE) fits = false;
+
+    if (fits) {
+      queued.increment();
+    } else {
+      pending.position(start);
+      dropped.increment();
+    }
+  }
+
+  /**
+   * Gets the end of the frame starting at the given index of a buffer in read mode, or -1 if the
+   * frame is incomplete.
+   */
+  private int frameEnd(ByteBuffer buf, int start) {
+    if (framing == Framing.LENGTH_PREFIXED) {
+      if (buf.limit() - start < 4) return -1;
+      int end = start + 4 + buf.getInt(start);
+      return end <= buf.limit() ? end : -1;
+    }
+    for (int i = start; i < buf.limit(); i++)
+      if (buf.get(i) == '\n') return i + 1;
+    return -1;
+  }
+
+  /**
+   * Makes the frames in the pending buffer ready to send, if everything previously taken has
+   * been sent.
+   *
+   * @return True if there is anything to send.
+   */
+  private boolean take() {
+    if (sending.hasRemaining()) return true;
+    synchronized (this) {
+      if (pending.position() == 0) return false;
+      ByteBuffer filled = pending;
+      sending.clear();
+      pending = sending;
+      sending = filled;
+      sending.flip();
+      return true;
+    }
+  }
+
+  @Override
+  public void flush() {
+    selector.wakeup();
+  }
+
+  /**
+   * Stops accepting messages and waits up to {@link #CLOSE_TIMEOUT_MILLIS} for buffered messages
+   * to be sent before closing the connection.
+   */
+  @Override
+  public void close() {
+    running = false;
+    selector.wakeup();
+    try {
+      thread.join(CLOSE_TIMEOUT_MILLIS + MIN_BACKOFF_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    long closeDeadline = 0;
+    try {
+      while (true) {
+        long now = System.currentTimeMillis();
+        if (!running) {
+          if (closeDeadline == 0) closeDeadline = now + CLOSE_TIMEOUT_MILLIS;
+          if (!take() || now >= closeDeadline) break;
+        }
+
+        if (channel == null && now >= nextAttempt) connect(now);
+        else if (channel != null && !connected && now >= connectDeadline)
+          failed(now, new SocketTimeoutException("Connection timed out after " + CONNECT_TIMEOUT_MILLIS + "ms"));
+        if (connected) send();
+
+        // Wait for the next connection attempt, or for the channel or a new message to be ready.
+        long timeout = channel == null ? Math.max(1, nextAttempt - now)
+            : connected ? 0 : Math.max(1, connectDeadline - now);
+        if (!running) timeout = timeout == 0 ? 10 : Math.min(timeout, 10);
+        selector.select(timeout);
+        selector.selectedKeys().clear();
+
+        if (channel != null && !connected) finishConnect();
+      }
+    } catch (IOException | RuntimeException e) {
+      LoggingMetrics.error(this, "send to " + address, e);
+    } finally {
+      disconnect();
+      try {
+        selector.close();
+      } catch (IOException e) {
+        LoggingMetrics.error(this, "close its selector", e);
+      }
+    }
+  }
+
+  private void connect(long now) {
+    try {
+      // Resolved again each time, so a collector that moved or a failed lookup is recovered from.
+      InetSocketAddress address = new InetSocketAddress(this.address.getHostString(), this.address.getPort());
+      connectDeadline = now + CONNECT_TIMEOUT_MILLIS;
+      if (protocol == Protocol.TCP) {
+        SocketChannel socket = SocketChannel.open();
+        channel = socket;
+        socket.configureBlocking(false);
+        socket.socket().setTcpNoDelay(true);
+        key = socket.register(selector, SelectionKey.OP_CONNECT);
+        if (socket.connect(address)) established();
+      } else {
+        DatagramChannel datagrams = DatagramChannel.open();
+        channel = datagrams;
+        datagrams.configureBlocking(false);
+        key = datagrams.register(selector, 0);
+        datagrams.connect(address);
+        established();
+      }
+    } catch (IOException | RuntimeException e) {
+      // Including an unresolved address or a denied connection, which are retried the same way.
+      failed(now, e);
+    }
+  }
+
+  private void finishConnect() {
+    if (!(channel instanceof SocketChannel)) return;
+    try {
+      if (((SocketChannel) channel).finishConnect()) established();
+    } catch (IOException | RuntimeException e) {
+      failed(System.currentTimeMillis(), e);
+    }
+  }
+
+  private void established() {
+    connected = true;
+    backoff = MIN_BACKOFF_MILLIS;
+    connections.increment();
+    key.interestOps(0);
+  }
+
+  private void failed(long now, Exception e) {
+    failures.increment();
+    LoggingMetrics.error(this, "reach " + address, e);
+    disconnect();
+    nextAttempt = now + backoff;
+    backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+  }
+
+  private void disconnect() {
+    connected = false;
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException ignored) {
+        // Nothing more can be done with it.
+      }
+    }
+    channel = null;
+    key = null;
+
+    // A frame sent in part cannot be resumed on a new connection, so the rest of it is dropped.
+    int position = sending.position(), boundary = 0;
+    while (boundary >= 0 && boundary < position) boundary = frameEnd(sending, boundary);
+    if (boundary > position) {
+      sending.position(boundary);
+      dropped.increment();
+    }
+  }
+
+  /**
+   * Writes as much as possible without blocking, asking to be woken when the channel can take
+   * more.
+   */
+  private void send() {
+    try {
+      while (take()) {
+        boolean blocked = protocol == Protocol.TCP ? !writeStream() : !writeDatagram();
+        if (blocked) {
+          key.interestOps(SelectionKey.OP_WRITE);
+          return;
+        }
+      }
+      key.interestOps(0);
+    } catch (IOException | RuntimeException e) {
+      failed(System.currentTimeMillis(), e);
+    }
+  }
+
+  private boolean writeStream() throws IOException {
+    int written = channel.write(sending);
+    bytesSent.add(written);
+    return !sending.hasRemaining();
+  }
+
+  private boolean writeDatagram() throws IOException {
+    int start = sending.position(), end = start;
+    while (true) {
+      int next = frameEnd(sending, end);
+      if (next < 0 || next - start > DATAGRAM_SIZE && end > start) break;
+      end = next;
+      if (end - start >= DATAGRAM_SIZE) break;
+    }
+
+    datagram.clear();
+    ByteBuffer frames = sending.duplicate();
+    frames.limit(end);
+    datagram.put(frames).flip();
+    int written = channel.write(datagram);
+    if (written == 0) return false;
+    bytesSent.add(written);
+    sending.position(end);
+    return true;
+  }
+
+}
@@ -3,8 +3,18 @@ package io.vevox.vx.lib.logging;
 import org.apache.commons.lang3.Validate;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IllegalFormatException;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Matthew Struble
@@ -12,11 +22,66 @@ import java.util.Map;
 @SuppressWarnings("unused WeakerAccess")
 public class vxLogger {
 
-  private Map<String, Transport> transports = new HashMap<>();
+  /**
+   * The name of the {@link #root() root logger}.
+   */
+  public static final String ROOT_NAME = "root";
+
+  /**
+   * Bumped whenever the transports, additivity or level of any logger change, invalidating every
+   * cached transport chain.
+   */
+  private static final AtomicInteger generation = new AtomicInteger();
+
+  /**
+   * Ordinal used when no transport will accept a message at any level.
+   */
+  private static final int LEVEL_OFF = LoggingLevel.values().length;
+
+  private static final Transport[] NO_TRANSPORTS = new Transport[0];
+  static final Object[] NO_ARGS = new Object[0];
+  private static final String[] NO_KEYS = new String[0];
+  private static final Comparator<Transport> BY_LEVEL = Comparator.comparingInt(t -> t.level().ordinal());
+
+  /**
+   * An immutable snapshot of this logger's transports, sorted by ascending level. Replaced as a
+   * whole whenever a transport is added or removed.
+   */
+  private volatile Transport[] transports = NO_TRANSPORTS;
+  private volatile AsyncDispatcher dispatcher;
+  private volatile Backpressure backpressure;
+  private volatile boolean additive = true;
+  private volatile RateLimiter limiter;
+  private volatile StackTraceWindow traces;
+  private volatile LoggingLevel level;
+
+  /**
+   * The number of messages delivered by this logger, indexed by level ordinal.
+   */
+  private final LongAdder[] counts = new LongAdder[LEVEL_OFF];
+
+  /**
+   * The number of messages dropped because the dispatcher was full, indexed by level ordinal.
+   */
+  private final LongAdder[] drops = new LongAdder[LEVEL_OFF];
+
+  /**
+   * The transports of this logger and of every ancestor it propagates to, flattened and sorted
+   * by ascending level.
+   */
+  private volatile Chain chain;
 
   public final String name;
   public final vxLogger parent;
 
+  private static final ConcurrentHashMap<String, vxLogger> registry = new ConcurrentHashMap<>();
+  private static final vxLogger root = new vxLogger(ROOT_NAME);
+  private static final Set<vxLogger> limited = Collections.newSetFromMap(new WeakHashMap<>());
+
+  static {
+    registry.put(ROOT_NAME, root);
+  }
+
   /**
    * Creates a new logging system with the given name and starting list of transports. This logger
    * will be created as a top-level orphan.
@@ -75,6 +140,10 @@ public class vxLogger {
     Validate.isTrue(name.length() > 0, "Logger name cannot be an empty String");
     this.name = name;
     this.parent = parent;
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+      drops[i] = new LongAdder();
+    }
 
     for (Transport transport : transports) add(transport);
   }
@@ -90,14 +159,455 @@ public class vxLogger {
    */
   public vxLogger add(Transport transport) throws IllegalArgumentException {
     Validate.notNull(transport);
-    if (this.transports.containsKey(transport.name()))
-      throw new IllegalArgumentException("Transport with given name already present");
+    synchronized (this) {
+      Transport[] current = transports;
+      if (indexOf(current, transport.name()) >= 0)
+        throw new IllegalArgumentException("Transport with given name already present");
+
+      Transport[] next = Arrays.copyOf(current, current.length + 1);
+      next[current.length] = transport;
+      Arrays.sort(next, BY_LEVEL);
+      transports = next;
+    }
+    generation.incrementAndGet();
+
+    return this;
+  }
+
+  /**
+   * Removes a logging transport from this logger and {@link Transport#close() closes} it.
+   * Messages still on their way to it may be discarded.
+   *
+   * @param name The name of the transport to remove.
+   *
+   * @return This logger.
+   * @throws IllegalArgumentException If the name is null or no transport with it exists.
+   * @since 0.2.0-m1.10.2
+   */
+  public vxLogger remove(String name) throws IllegalArgumentException {
+    Validate.notNull(name);
+    Transport removed;
+    synchronized (this) {
+      Transport[] current = transports;
+      int index = indexOf(current, name);
+      if (index < 0)
+        throw new IllegalArgumentException("No transport with given name present");
+
+      removed = current[index];
+      Transport[] next = new Transport[current.length - 1];
+      System.arraycopy(current, 0, next, 0, index);
+      System.arraycopy(current, index + 1, next, index, next.length - index);
+      transports = next;
+    }
+    generation.incrementAndGet();
+
+    removed.close();
+    return this;
+  }
+
+  /**
+   * Removes every transport from this logger and {@link Transport#close() closes} them, along
+   * with the overflow file of this logger's own {@link #backpressure(Backpressure) backpressure}
+   * policy, if it spills. Called for a plugin's loggers when the plugin is disabled, so that files
+   * and connections are not leaked across reloads.
+   *
+   * @return This logger.
+   * @since 0.2.0-m1.10.2
+   */
+  public vxLogger close() {
+    Transport[] removed;
+    synchronized (this) {
+      removed = transports;
+      transports = NO_TRANSPORTS;
+    }
+    generation.incrementAndGet();
+
+    for (Transport transport : removed) {
+      try {
+        transport.close();
+      } catch (RuntimeException e) {
+        LoggingMetrics.error(transport, "close", e);
+      }
+    }
+    Backpressure backpressure = this.backpressure;
+    if (backpressure != null) backpressure.close();
+    return this;
+  }
+
+  private static int indexOf(Transport[] transports, String name) {
+    for (int i = 0; i < transports.length; i++)
+      if (transports[i].name().equals(name)) return i;
+    return -1;
+  }
+
+  /**
+   * Checks whether a message logged at the given level would be received by any transport of
+   * this logger or its parents. Messages at disabled levels are discarded before they are
+   * formatted.
+   *
+   * @param level The level to check.
+   *
+   * @return True if messages at the level will be delivered.
+   * @since 0.2.0-m1.10.2
+   */
+  public boolean isEnabled(LoggingLevel level) {
+    return level.ordinal() >= effectiveOrdinal();
+  }
+
+  /**
+   * Gets the lowest level at which a message logged to this logger will be received by any
+   * transport of this logger or its parents, taking the logger's {@link #level() level} into
+   * account.
+   *
+   * @return The effective level, or null if no transport will receive any message.
+   * @since 0.2.0-m1.10.2
+   */
+  @Nullable
+  public LoggingLevel effectiveLevel() {
+    int ordinal = effectiveOrdinal();
+    return ordinal == LEVEL_OFF ? null : LoggingLevel.values()[ordinal];
+  }
+
+  private int effectiveOrdinal() {
+    return chain().minimum;
+  }
+
+  /**
+   * Gets the root logger. Every logger obtained through {@link #get(String)} descends from it.
+   *
+   * @return The root logger.
+   * @since 0.2.0-m1.10.2
+   */
+  public static vxLogger root() {
+    return root;
+  }
+
+  /**
+   * Gets the logger with the given dotted name, creating it if it does not exist yet. The parent
+   * of a logger is the logger named by everything before its last dot, so
+   * <code>plugin.sub.component</code> is a child of <code>plugin.sub</code>, which is a child of
+   * <code>plugin</code>. Loggers without a dot are children of the {@link #root() root logger}.
+   *
+   * @param name The name of the logger.
+   *
+   * @return The logger.
+   * @throws IllegalArgumentException If the name is null, empty, or has an empty segment.
+   * @since 0.2.0-m1.10.2
+   */
+  public static vxLogger get(String name) throws IllegalArgumentException {
+    Validate.notNull(name, "Logger name cannot be null");
+    vxLogger logger = registry.get(name);
+    if (logger != null) return logger;
+
+    Validate.isTrue(name.length() > 0, "Logger name cannot be an empty String");
+    Validate.isTrue(name.charAt(0) != '.' && name.charAt(name.length() - 1) != '.' && !name.contains(".."),
+        "Logger name cannot contain an empty segment");
+    int dot = name.lastIndexOf('.');
+    vxLogger parent = dot < 0 ? root : get(name.substring(0, dot));
+    return registry.computeIfAbsent(name, n -> new vxLogger(n, parent));
+  }
+
+  /**
+   * Gets the name of a plugin's logger: the plugin's name with any dots replaced by colons, which
+   * plugin names cannot contain. The logger is then always a direct child of the
+   * {@link #root() root logger}, rather than of another plugin's logger or none at all, and its own
+   * children are named with dots after it as usual.
+   *
+   * @param plugin The name of the plugin.
+   *
+   * @return The name of the logger.
+   * @throws IllegalArgumentException If the name is null or empty.
+   * @since 0.2.0-m1.10.2
+   */
+  public static String pluginName(String plugin) throws IllegalArgumentException {
+    Validate.notNull(plugin, "Plugin name cannot be null");
+    Validate.isTrue(plugin.length() > 0, "Plugin name cannot be empty");
+    return plugin.replace('.', ':');
+  }
+
+  /**
+   * Gets the logger with the given dotted name, if it was already created through
+   * {@link #get(String)}. Unlike {@link #get(String)}, this never creates a logger.
+   *
+   * @param name The name of the logger.
+   *
+   * @return The logger, or null if there is none by that name.
+   * @throws IllegalArgumentException If the name is null.
+   * @since 0.2.0-m1.10.2
+   */
+  @Nullable
+  public static vxLogger find(String name) throws IllegalArgumentException {
+    Validate.notNull(name, "Logger name cannot be null");
+    return registry.get(name);
+  }
+
+  /**
+   * Gets every logger created through {@link #get(String)}, including the root logger.
+   *
+   * @return A snapshot of the registered loggers.
+   * @since 0.2.0-m1.10.2
+   */
+  public static Collection<vxLogger> loggers() {
+    return Collections.unmodifiableList(new ArrayList<>(registry.values()));
+  }
+
+  /**
+   * Sets the level of this logger. Messages below it are discarded before they reach any
+   * transport, even if the transport would accept them. Loggers without a level of their own
+   * use the level of their nearest ancestor that has one.
+   * <p>
+   * Levels can be changed at any time, which makes it possible to turn on detailed output for a
+   * single subsystem at runtime.
+   *
+   * @param level The level, or null to inherit the parent's level.
+   *
+   * @return This logger.
+   * @since 0.2.0-m1.10.2
+   */
+  public vxLogger level(@Nullable LoggingLevel level) {
+    this.level = level;
+    generation.incrementAndGet();
+    return this;
+  }
+
+  /**
+   * Gets the level set on this logger.
+   *
+   * @return The level, or null if it is inherited.
+   * @since 0.2.0-m1.10.2
+   */
+  @Nullable
+  public LoggingLevel level() {
+    return level;
+  }
+
+  /**
+   * Gets the number of messages at the given level that this logger has delivered to its
+   * transports.
+   *
+   * @param level The level.
+   *
+   * @return The number of messages.
+   * @since 0.2.0-m1.10.2
+   */
+  public long count(LoggingLevel level) {
+    return counts[level.ordinal()].sum();
+  }
+
+  /**
+   * Gets the number of messages at the given level that were logged to this logger but dropped
+   * because its {@link AsyncDispatcher} was full. Dropped messages are included in
+   * {@link #count(LoggingLevel)}.
+   *
+   * @param level The level.
+   *
+   * @return The number of dropped messages.
+   * @see Backpressure
+   * @since 0.2.0-m1.10.2
+   */
+  public long dropped(LoggingLevel level) {
+    return drops[level.ordinal()].sum();
+  }
+
+  void drop(LoggingLevel level) {
+    drops[level.ordinal()].increment();
+  }
+
+  /**
+   * Sets whether messages logged to this logger, or any of its children, are also delivered to
+   * the transports of this logger's parent. Loggers are additive by default.
+   *
+   * @param additive The additivity.
+   *
+   * @return This logger.
+   * @since 0.2.0-m1.10.2
+   */
+  public vxLogger additivity(boolean additive) {
+    this.additive = additive;
+    generation.incrementAndGet();
+    return this;
+  }
+
+  /**
+   * Gets whether messages logged to this logger are also delivered to its parent's transports.
+   *
+   * @return The additivity.
+   * @since 0.2.0-m1.10.2
+   */
+  public boolean additivity() {
+    return additive;
+  }
+
+  /**
+   * Assigns a {@link RateLimiter} to this logger. Messages logged directly to this logger are
+   * passed through it, by template, before they are formatted. Summaries of suppressed repeats
+   * still pending are logged when this logger is {@link #flush(long, TimeUnit) flushed}, when its
+   * limiter is replaced, and periodically while it delivers through an {@link AsyncDispatcher}.
+   *
+   * @param limiter The limiter to use, or null to log every message.
+   *
+   * @return This logger.
+   * @since 0.2.0-m1.10.2
+   */
+  public vxLogger limit(@Nullable RateLimiter limiter) {
+    RateLimiter previous = this.limiter;
+    this.limiter = limiter;
+    if (previous != limiter) summarize(previous);
+    synchronized (limited) {
+      if (limiter == null) limited.remove(this);
+      else limited.add(this);
+    }
+    return this;
+  }
+
+  /**
+   * Gets the {@link RateLimiter} messages logged to this logger are passed through.
+   *
+   * @return The limiter, or null if there is none.
+   * @since 0.2.0-m1.10.2
+   */
+  @Nullable
+  public RateLimiter limiter() {
+    return limiter;
+  }
 
-    transports.put(transport.name(), transport);
+  /**
+   * Sets the window within which a repeated stack trace logged to this logger, or any of its
+   * children, is only rendered in full the first time.
+   *
+   * @param traces The window to use, or null to inherit the parent's window.
+   *
+   * @return This logger.
+   * @since 0.2.0-m1.10.2
+   */
+  public vxLogger traces(@Nullable StackTraceWindow traces) {
+    this.traces = traces;
+    return this;
+  }
 
+  /**
+   * Gets the {@link StackTraceWindow} used by this logger, either its own or that of its nearest
+   * ancestor.
+   *
+   * @return The window, which is {@link StackTraceWindow#DEFAULT} if no logger sets one.
+   * @since 0.2.0-m1.10.2
+   */
+  public StackTraceWindow traces() {
+    for (vxLogger logger = this; logger != null; logger = logger.parent)
+      if (logger.traces != null) return logger.traces;
+    return StackTraceWindow.DEFAULT;
+  }
+
+  private Chain chain() {
+    Chain chain = this.chain;
+    int gen = generation.get();
+    if (chain != null && chain.generation == gen) return chain;
+
+    Transport[] own = transports, merged = own;
+    if (additive && parent != null) {
+      Transport[] inherited = parent.chain().transports;
+      if (inherited.length > 0) {
+        merged = Arrays.copyOf(own, own.length + inherited.length);
+        System.arraycopy(inherited, 0, merged, own.length, inherited.length);
+        Arrays.sort(merged, BY_LEVEL);
+      }
+    }
+
+    int minimum = merged.length == 0 ? LEVEL_OFF : merged[0].level().ordinal();
+    for (vxLogger logger = this; logger != null; logger = logger.parent) {
+      LoggingLevel level = logger.level;
+      if (level != null) {
+        minimum = Math.max(minimum, level.ordinal());
+        break;
+      }
+    }
+
+    LatencyHistogram[] latencies = new LatencyHistogram[merged.length];
+    boolean render = false;
+    for (int i = 0; i < merged.length; i++) {
+      latencies[i] = LoggingMetrics.latency(merged[i]);
+      render |= !(merged[i] instanceof TransportBinary);
+    }
+
+    return this.chain = new Chain(gen, merged, latencies, minimum, render);
+  }
+
+  /**
+   * Assigns an {@link AsyncDispatcher} to this logger. Messages logged to this logger or any of
+   * its children will be enqueued on the dispatcher and delivered to transports on its consumer
+   * threads instead of the calling thread.
+   *
+   * @param dispatcher The dispatcher to use, or null to inherit the parent's dispatcher.
+   *
+   * @return This logger.
+   * @since 0.2.0-m1.10.2
+   */
+  public vxLogger async(@Nullable AsyncDispatcher dispatcher) {
+    this.dispatcher = dispatcher;
+    return this;
+  }
+
+  /**
+   * Gets the {@link AsyncDispatcher} used by this logger, either its own or that of its nearest
+   * ancestor.
+   *
+   * @return The dispatcher, or null if messages are delivered synchronously.
+   * @since 0.2.0-m1.10.2
+   */
+  @Nullable
+  public AsyncDispatcher dispatcher() {
+    for (vxLogger logger = this; logger != null; logger = logger.parent)
+      if (logger.dispatcher != null) return logger.dispatcher;
+    return null;
+  }
+
+  /**
+   * Sets what happens to messages logged to this logger, or any of its children, when its
+   * {@link AsyncDispatcher} is full.
+   *
+   * @param backpressure The policy to use, or null to inherit the parent's policy.
+   *
+   * @return This logger.
+   * @since 0.2.0-m1.10.2
+   */
+  public vxLogger backpressure(@Nullable Backpressure backpressure) {
+    this.backpressure = backpressure;
     return this;
   }
 
+  /**
+   * Gets the {@link Backpressure} policy used by this logger, either its own or that of its
+   * nearest ancestor.
+   *
+   * @return The policy, which is {@link Backpressure#BLOCK} if no logger sets one.
+   * @since 0.2.0-m1.10.2
+   */
+  public Backpressure backpressure() {
+    for (vxLogger logger = this; logger != null; logger = logger.parent)
+      if (logger.backpressure != null) return logger.backpressure;
+    return Backpressure.BLOCK;
+  }
+
+  /**
+   * Logs any summaries of repeats suppressed by this logger's {@link #limit(RateLimiter) limiter}
+   * that are still pending, blocks until all messages logged so far have been delivered to their
+   * transports, then {@link Transport#flush() flushes} every transport this logger delivers to.
+   *
+   * @param timeout The maximum time to wait for {@link #async(AsyncDispatcher) asynchronous}
+   *                delivery.
+   * @param unit    The unit of the timeout.
+   *
+   * @return True if all messages were delivered.
+   * @since 0.2.0-m1.10.2
+   */
+  public boolean flush(long timeout, TimeUnit unit) {
+    summarize(limiter);
+    AsyncDispatcher dispatcher = dispatcher();
+    boolean delivered = dispatcher == null || dispatcher.flush(timeout, unit);
+    for (Transport transport : chain().transports) transport.flush();
+    return delivered;
+  }
+
   /**
    * Sends a messages to this logger to be handled by its transports. If a parent
    * logger is present, the parent will also receive this message.
@@ -112,18 +622,223 @@ public class vxLogger {
   public void log(LoggingLevel level, String message) throws IllegalArgumentException {
     Validate.notNull(level);
     Validate.notNull(message);
-    Transport.TransportedMessage msg = new Transport.TransportedMessage(message, this, level);
-    transports.entrySet().stream()
-        .filter(e -> level.ordinal() >= e.getValue().level().ordinal())
-        .forEach(e -> e.getValue().receive(msg));
-    if (parent != null)
-      parent.log(msg);
+    if (!isEnabled(level) || !admit(level, message)) return;
+    deliver(level, message, null, NO_KEYS, NO_ARGS, 0);
+  }
+
+  /**
+   * Starts a message with structured fields at the given level. Fields from the thread's
+   * {@link LogContext} are attached as well.
+   *
+   * @param level The level at which to log the message.
+   *
+   * @return The event to add fields to and log; if the level is disabled, an event that discards
+   * everything.
+   * @throws IllegalArgumentException If the level is null.
+   * @see LogEvent
+   * @since 0.2.0-m1.10.2
+   */
+  public LogEvent at(LoggingLevel level) throws IllegalArgumentException {
+    Validate.notNull(level);
+    return isEnabled(level) ? LogEvent.obtain(this, level) : LogEvent.DISABLED;
+  }
+
+  void logFields(LoggingLevel level, String message, String[] keys, Object[] values, int count) {
+    if (!admit(level, message)) return;
+    deliver(level, message, null, keys, values, count);
+  }
+
+  void logFields(LoggingLevel level, String template, Object[] args, String[] keys, Object[] values,
+                 int count) {
+    if (!admit(level, template)) return;
+    logTemplate(level, template, args, keys, values, count);
+  }
+
+  private void deliver(LoggingLevel level, String message, @Nullable StackTrace trace, String[] keys,
+                       Object[] values, int count) {
+    counts[level.ordinal()].increment();
+    AsyncDispatcher dispatcher = dispatcher();
+    if (dispatcher == null || !dispatcher.publish(this, level, message, trace, keys, values, count))
+      dispatch(new Transport.TransportedMessage(message, this, level)
+          .trace(trace).fields(keys, values, count), 0, 1);
+  }
+
+  /**
+   * Passes a message through this logger's {@link RateLimiter}, if it has one, logging a summary
+   * of any repeats that were suppressed before it.
+   *
+   * @param level The level of the message.
+   * @param key   The template or plain message.
+   *
+   * @return False if the message should be suppressed.
+   */
+  private boolean admit(LoggingLevel level, String key) {
+    RateLimiter limiter = this.limiter;
+    if (limiter == null) return true;
+    long repeats = limiter.acquire(key, this, level);
+    if (repeats > 0) deliver(level, RateLimiter.summary(key, repeats), null, NO_KEYS, NO_ARGS, 0);
+    return repeats >= 0;
+  }
+
+  /**
+   * Logs the summaries of repeats suppressed by this logger's {@link RateLimiter} that are still
+   * pending because no further message with their template was let through.
+   */
+  private void summarize(@Nullable RateLimiter limiter) {
+    if (limiter == null) return;
+    limiter.flush((key, logger, level, repeats) ->
+        deliver(level == null ? LoggingLevel.INFO : level, RateLimiter.summary(key, repeats), null, NO_KEYS, NO_ARGS, 0));
+  }
+
+  /**
+   * Logs the pending summaries of every rate-limited logger delivering through the given
+   * dispatcher. Called periodically by the dispatcher.
+   *
+   * @param dispatcher The dispatcher.
+   */
+  static void summarize(AsyncDispatcher dispatcher) {
+    vxLogger[] loggers;
+    synchronized (limited) {
+      loggers = limited.toArray(new vxLogger[limited.size()]);
+    }
+    for (vxLogger logger : loggers)
+      if (logger.dispatcher() == dispatcher) logger.summarize(logger.limiter);
+  }
+
+  /**
+   * Sends a message using a {@link MessageTemplate} with <code>{}</code> placeholders to this
+   * logger. The arguments are captured as they are and only rendered once, on the thread
+   * delivering the message; nothing is rendered if no transport accepts the level.
+   * <p>
+   * Since rendering may happen later and on another thread, arguments should not be modified
+   * after they are logged.
+   * <p>
+   * If there is one more argument than the template has placeholders and it is a
+   * {@link Throwable}, it is logged as the message's stack trace, as with
+   * {@link #log(LoggingLevel, String, Throwable)}.
+   *
+   * @param level    The level at which to log this message.
+   * @param template The message template.
+   * @param args     The objects to populate the template with.
+   *
+   * @throws IllegalArgumentException If the level or template is null.
+   * @see MessageTemplate
+   * @since 0.2.0-m1.10.2
+   */
+  public void logp(LoggingLevel level, String template, Object... args) throws IllegalArgumentException {
+    Validate.notNull(level);
+    Validate.notNull(template);
+    if (!isEnabled(level) || !admit(level, template)) return;
+    logTemplate(level, template, args == null ? NO_ARGS : args, NO_KEYS, NO_ARGS, 0);
+  }
+
+  /**
+   * Sends a message using a {@link MessageTemplate} with a single argument to this logger.
+   *
+   * @param level    The level at which to log this message.
+   * @param template The message template.
+   * @param arg      The object to populate the template with.
+   *
+   * @throws IllegalArgumentException If the level or template is null.
+   * @see #logp(LoggingLevel, String, Object...)
+   * @since 0.2.0-m1.10.2
+   */
+  public void logp(LoggingLevel level, String template, Object arg) throws IllegalArgumentException {
+    Validate.notNull(level);
+    Validate.notNull(template);
+    if (!isEnabled(level) || !admit(level, template)) return;
+    logTemplate(level, template, new Object[]{ arg }, NO_KEYS, NO_ARGS, 0);
+  }
+
+  /**
+   * Sends a message using a {@link MessageTemplate} with two arguments to this logger.
+   *
+   * @param level    The level at which to log this message.
+   * @param template The message template.
+   * @param arg1     The first object to populate the template with.
+   * @param arg2     The second object to populate the template with.
+   *
+   * @throws IllegalArgumentException If the level or template is null.
+   * @see #logp(LoggingLevel, String, Object...)
+   * @since 0.2.0-m1.10.2
+   */
+  public void logp(LoggingLevel level, String template, Object arg1, Object arg2)
+      throws IllegalArgumentException {
+    Validate.notNull(level);
+    Validate.notNull(template);
+    if (!isEnabled(level) || !admit(level, template)) return;
+    logTemplate(level, template, new Object[]{ arg1, arg2 }, NO_KEYS, NO_ARGS, 0);
+  }
+
+  private void logTemplate(LoggingLevel level, String template, Object[] args, String[] keys,
+                           Object[] values, int count) {
+    MessageTemplate parsed = MessageTemplate.of(template);
+    StackTrace trace = null;
+    if (args.length > parsed.placeholders() && args[args.length - 1] instanceof Throwable)
+      trace = traces().record((Throwable) args[args.length - 1]);
+
+    counts[level.ordinal()].increment();
+    AsyncDispatcher dispatcher = dispatcher();
+    if (dispatcher == null || !dispatcher.publish(this, level, parsed, args, trace, keys, values, count))
+      dispatch(new Transport.TransportedMessage(parsed, args, this, level)
+          .trace(trace).fields(keys, values, count), 0, 1);
+  }
+
+  /**
+   * Delivers a message to the transports of this logger and every ancestor it propagates to,
+   * honouring each transport's level. When delivery is split across several consumer threads,
+   * only the transports owned by the given shard receive the message.
+   *
+   * @param msg    The message.
+   * @param shard  The shard delivering the message.
+   * @param shards The total number of shards.
+   */
+  void dispatch(Transport.TransportedMessage msg, int shard, int shards) {
+    int ordinal = msg.level.ordinal();
+    Chain chain = chain();
+    Transport[] transports = chain.transports;
+    boolean timing = LoggingMetrics.timing();
+    for (int i = 0; i < transports.length; i++) {
+      Transport transport = transports[i];
+      if (transport.level().ordinal() > ordinal) break;
+      if (!owns(transport, shard, shards)) continue;
+
+      if (chain.render) msg.message();
+      if (timing) {
+        long start = System.nanoTime();
+        transport.receive(msg);
+        chain.latencies[i].record(System.nanoTime() - start);
+      } else {
+        transport.receive(msg);
+      }
+    }
+  }
+
+  /**
+   * Queues a message for each transport that would receive it from
+   * {@link #dispatch(Transport.TransportedMessage, int, int)}, to be delivered with the rest of
+   * the batch.
+   *
+   * @param msg    The message.
+   * @param shard  The shard delivering the message.
+   * @param shards The total number of shards.
+   * @param batch  The batch of the shard.
+   */
+  void collect(Transport.TransportedMessage msg, int shard, int shards, MessageBatch batch) {
+    int ordinal = msg.level.ordinal();
+    Chain chain = chain();
+    Transport[] transports = chain.transports;
+    for (int i = 0; i < transports.length; i++) {
+      Transport transport = transports[i];
+      if (transport.level().ordinal() > ordinal) break;
+      if (!owns(transport, shard, shards)) continue;
+      if (chain.render) msg.message();
+      batch.add(transport, chain.latencies[i], msg);
+    }
   }
 
-  private void log(Transport.TransportedMessage msg) {
-    transports.forEach((n, t) -> t.receive(msg));
-    if (parent != null)
-      parent.log(msg);
+  private static boolean owns(Transport transport, int shard, int shards) {
+    return shards == 1 || (transport.name().hashCode() & Integer.MAX_VALUE) % shards == shard;
   }
 
   /**
@@ -139,7 +854,42 @@ public class vxLogger {
    * @since 1.10.2-r0.1
    */
   public void log(LoggingLevel level, String message, Object... args) throws IllegalArgumentException {
-    log(level, String.format(message, args));
+    Validate.notNull(level);
+    Validate.notNull(message);
+    if (!isEnabled(level) || !admit(level, message)) return;
+    deliver(level, String.format(message, args), null, NO_KEYS, NO_ARGS, 0);
+  }
+
+  /**
+   * Sends a message with a throwable to this logger. The throwable's stack trace is
+   * {@link StackTrace#fingerprint(Throwable) fingerprinted}, and rendered in full only the first
+   * time the fingerprint is seen within this logger's {@link #traces() window}; later occurrences
+   * are rendered as a short reference and a counter. Rendering is left to the transports.
+   * <p>
+   * A message containing <code>%</code> is still formatted through
+   * {@link String#format(String, Object...)} with the throwable as its only argument, as calls
+   * such as <code>error("Failed: %s", e)</code> were before this overload existed.
+   *
+   * @param level   The level at which to log this message.
+   * @param message The message to send, formatted if it contains <code>%</code>.
+   * @param thrown  The throwable, or null for none.
+   *
+   * @throws IllegalArgumentException If the level or message is null.
+   * @see #log(LoggingLevel, String)
+   * @since 0.2.0-m1.10.2
+   */
+  public void log(LoggingLevel level, String message, @Nullable Throwable thrown) throws IllegalArgumentException {
+    Validate.notNull(level);
+    Validate.notNull(message);
+    if (!isEnabled(level) || !admit(level, message)) return;
+    if (message.indexOf('%') >= 0) {
+      try {
+        message = String.format(message, thrown);
+      } catch (IllegalFormatException e) {
+        // Not a format string after all; log it as is
+      }
+    }
+    deliver(level, message, thrown == null ? null : traces().record(thrown), NO_KEYS, NO_ARGS, 0);
   }
 
   /**
@@ -287,6 +1037,20 @@ public class vxLogger {
     log(LoggingLevel.WARNING, message, args);
   }
 
+  /**
+   * Logs a {@link LoggingLevel#WARNING warning} message with a throwable to the logger.
+   *
+   * @param message The message to log.
+   * @param thrown  The throwable.
+   *
+   * @throws IllegalArgumentException If the message is null.
+   * @see #log(LoggingLevel, String, Throwable)
+   * @since 0.2.0-m1.10.2
+   */
+  public void warning(String message, Throwable thrown) throws IllegalArgumentException {
+    log(LoggingLevel.WARNING, message, thrown);
+  }
+
   /**
    * Logs a {@link LoggingLevel#ERROR error} message to the logger.
    *
@@ -316,4 +1080,47 @@ public class vxLogger {
     log(LoggingLevel.ERROR, message, args);
   }
 
+  /**
+   * Logs an {@link LoggingLevel#ERROR error} message with a throwable to the logger.
+   *
+   * @param message The message to log.
+   * @param thrown  The throwable.
+   *
+   * @throws IllegalArgumentException If the message is null.
+   * @see #log(LoggingLevel, String, Throwable)
+   * @since 0.2.0-m1.10.2
+   */
+  public void error(String message, Throwable thrown) throws IllegalArgumentException {
+    log(LoggingLevel.ERROR, message, thrown);
+  }
+
+  private static final class Chain {
+
+    private final int generation;
+    private final Transport[] transports;
+    private final LatencyHistogram[] latencies;
+
+    /**
+     * The effective level ordinal: the higher of the logger's level and the lowest transport level.
+     */
+    private final int minimum;
+
+    /**
+     * Whether messages are rendered before they are delivered, for transports still reading the
+     * deprecated {@link Transport.TransportedMessage#message} field. Only a chain of
+     * {@link TransportBinary}s, which never render, skips it.
+     */
+    private final boolean render;
+
+    private Chain(int generation, Transport[] transports, LatencyHistogram[] latencies, int minimum,
+                  boolean render) {
+      this.generation = generation;
+      this.transports = transports;
+      this.latencies = latencies;
+      this.minimum = minimum;
+      this.render = render;
+    }
+
+  }
+
 }
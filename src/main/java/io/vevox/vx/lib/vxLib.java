@@ -1,8 +1,14 @@
 package io.vevox.vx.lib;
 
+import io.vevox.vx.lib.cmd.AsyncCommands;
+import io.vevox.vx.lib.logging.AsyncDispatcher;
+import io.vevox.vx.lib.logging.LoggingCommand;
 import io.vevox.vx.lib.logging.LoggingLevel;
 import io.vevox.vx.lib.logging.TransportConsole;
+import io.vevox.vx.lib.logging.TransportMemory;
+import io.vevox.vx.lib.logging.vxLogger;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -27,17 +33,43 @@ public class vxLib extends vxPlugin {
 
   protected static vxLib instance;
 
+  private AsyncDispatcher dispatcher;
+  private TransportMemory memory;
+  private AsyncCommands commands;
+
   {
     // Load
     load((l) -> {
       // The vxLib instance should be null at this point. Let's initialize it.
       instance = this;
-      logger().add(new TransportConsole(LoggingLevel.DEBUG));
+      dispatcher = new AsyncDispatcher().start();
+      memory = new TransportMemory(LoggingLevel.DEBUG);
+      vxLogger.root().add(new TransportConsole(LoggingLevel.DEBUG)).add(memory).async(dispatcher);
+      commands = new AsyncCommands(this);
     });
 
-    // TODO Actually implement this.
-    enable(noImplP);
-    disable(noImplC);
+    enable(l -> {
+      getCommand("vxlog").setExecutor(new LoggingCommand(memory));
+      return true;
+    });
+    disable(l -> {
+      commands.close(LOGGER_FLUSH_TIMEOUT, TimeUnit.SECONDS);
+      dispatcher.close(LOGGER_FLUSH_TIMEOUT, TimeUnit.SECONDS);
+      // Close every transport, so no file or connection leaks across reloads
+      for (vxLogger logger : vxLogger.loggers())
+        logger.close();
+    });
+  }
+
+  /**
+   * Gets the executor shared by plugins for running
+   * {@link io.vevox.vx.lib.cmd.AsyncCommandDelegator asynchronous commands}.
+   *
+   * @return The executor.
+   * @since 0.2.0-m1.10.2
+   */
+  public static AsyncCommands asyncCommands() {
+    return instance.commands;
   }
 
 
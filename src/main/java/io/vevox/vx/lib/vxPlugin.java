@@ -3,6 +3,7 @@ package io.vevox.vx.lib;
 import io.vevox.vx.lib.logging.vxLogger;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -13,6 +14,12 @@ import java.util.function.Predicate;
 @SuppressWarnings({"unused", "WeakerAccess"})
 public abstract class vxPlugin extends JavaPlugin {
 
+  /**
+   * The maximum number of seconds to wait for pending log messages to be delivered when the
+   * plugin is disabled.
+   */
+  public static final long LOGGER_FLUSH_TIMEOUT = 5;
+
   private Consumer<vxLib> loadF, disableF;
   private Predicate<vxLib> enableF;
 
@@ -60,7 +67,7 @@ public abstract class vxPlugin extends JavaPlugin {
 
   @Override
   public final void onLoad() {
-    logger = new vxLogger(getName(), vxLib.instance == null ? null : vxLib.instance.logger());
+    logger = vxLogger.get(vxLogger.pluginName(getName()));
     if (loadF == null) loadF = vxLib.noImplC;
     loadF.accept(vxLib.instance);
   }
@@ -76,6 +83,9 @@ public abstract class vxPlugin extends JavaPlugin {
   public final void onDisable() {
     if (disableF == null) disableF = vxLib.noImplC;
     disableF.accept(vxLib.instance);
+    // Only flushed, as the plugin may be enabled again with the same transports. vxLib closes
+    // every logger's transports when it is disabled itself, before the plugins are reloaded.
+    logger.flush(LOGGER_FLUSH_TIMEOUT, TimeUnit.SECONDS);
   }
 
   protected final vxLogger logger() {
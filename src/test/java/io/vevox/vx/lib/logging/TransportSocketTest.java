@@ -0,0 +1,264 @@
+package io.vevox.vx.lib.logging;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link TransportSocket} against collectors listening on the loopback interface.
+ *
+ * @author Matthew Struble
+ * @since 0.2.0-m1.10.2
+ */
+public class TransportSocketTest {
+
+  private static final int TIMEOUT_MILLIS = 5000;
+
+  private final vxLogger logger = new vxLogger("socket-test");
+  private final List<AutoCloseable> resources = new ArrayList<>();
+  private TransportSocket transport;
+
+  @After
+  public void tearDown() throws Exception {
+    if (transport != null) transport.close();
+    for (AutoCloseable resource : resources)
+      resource.close();
+  }
+
+  @Test
+  public void sendsNewlineDelimitedFrames() throws Exception {
+    ServerSocketChannel server = listen(0);
+    transport = open(server.getLocalAddress(), TransportSocket.Protocol.TCP, TransportSocket.Framing.NDJSON,
+        TransportSocket.DEFAULT_BUFFER_SIZE);
+    transport.receive(message("first"));
+    transport.receive(message("second \"quoted\""));
+
+    BufferedReader in = reader(accept(server));
+    String first = in.readLine(), second = in.readLine();
+    assertTrue(first, first.startsWith("{") && first.endsWith("}"));
+    assertTrue(first, first.contains("\"message\":\"first\""));
+    assertTrue(second, second.contains("\"message\":\"second \\\"quoted\\\"\""));
+    assertTrue(second, second.contains("\"logger\":\"socket-test\""));
+
+    long sent = first.length() + second.length() + 2;
+    await(() -> transport.bytesSent() == sent);
+    assertEquals(0, transport.buffered());
+    assertEquals(2, transport.queued());
+    assertEquals(0, transport.dropped());
+  }
+
+  @Test
+  public void sendsLengthPrefixedFrames() throws Exception {
+    ServerSocketChannel server = listen(0);
+    transport = open(server.getLocalAddress(), TransportSocket.Protocol.TCP,
+        TransportSocket.Framing.LENGTH_PREFIXED, TransportSocket.DEFAULT_BUFFER_SIZE);
+    transport.receiveBatch(new Transport.TransportedMessage[]{ message("one"), message("caf\u00e9") }, 0, 2);
+
+    DataInputStream in = new DataInputStream(accept(server).socket().getInputStream());
+    String one = readFrame(in), two = readFrame(in);
+    assertTrue(one, one.startsWith("{") && one.endsWith("}") && one.contains("\"message\":\"one\""));
+    assertTrue(two, two.contains("\"message\":\"caf\u00e9\""));
+
+    long sent = 8 + one.length() + two.getBytes(StandardCharsets.UTF_8).length;
+    await(() -> transport.bytesSent() == sent);
+    assertEquals(0, transport.buffered());
+    assertEquals(2, transport.queued());
+  }
+
+  @Test
+  public void packsFramesIntoDatagrams() throws Exception {
+    DatagramChannel collector = DatagramChannel.open();
+    resources.add(collector);
+    collector.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    collector.socket().setSoTimeout(TIMEOUT_MILLIS);
+    collector.socket().setReceiveBufferSize(1024 * 1024);
+
+    int count = 100;
+    Transport.TransportedMessage[] msgs = new Transport.TransportedMessage[count];
+    for (int i = 0; i < count; i++)
+      msgs[i] = message(String.format("message %03d %0150d", i, 0));
+    transport = open(collector.getLocalAddress(), TransportSocket.Protocol.UDP, TransportSocket.Framing.NDJSON,
+        TransportSocket.DEFAULT_BUFFER_SIZE);
+    transport.receiveBatch(msgs, 0, count);
+
+    int lines = 0, datagrams = 0;
+    DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+    while (lines < count) {
+      collector.socket().receive(packet);
+      datagrams++;
+      String text = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+      assertTrue("Datagram of " + packet.getLength() + " bytes",
+          packet.getLength() <= TransportSocket.DATAGRAM_SIZE);
+      assertTrue("Datagram does not end with a whole frame", text.endsWith("}\n"));
+      for (String line : text.split("\n")) {
+        assertTrue(line, line.contains(String.format("\"message\":\"message %03d ", lines)));
+        lines++;
+      }
+    }
+    assertTrue("Only " + datagrams + " datagrams for " + count + " frames", datagrams > 1 && datagrams < count);
+    assertEquals(0, transport.dropped());
+  }
+
+  @Test
+  public void dropsFramesLargerThanADatagram() throws Exception {
+    DatagramChannel collector = DatagramChannel.open();
+    resources.add(collector);
+    collector.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    collector.socket().setSoTimeout(TIMEOUT_MILLIS);
+
+    transport = open(collector.getLocalAddress(), TransportSocket.Protocol.UDP, TransportSocket.Framing.NDJSON,
+        TransportSocket.DEFAULT_BUFFER_SIZE);
+    transport.receiveBatch(new Transport.TransportedMessage[]{
+        message(String.format("%0" + TransportSocket.DATAGRAM_SIZE + "d", 0)), message("small")
+    }, 0, 2);
+
+    DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+    collector.socket().receive(packet);
+    String text = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+    assertTrue(text, text.contains("\"message\":\"small\"") && text.indexOf('\n') == text.length() - 1);
+    assertEquals(1, transport.queued());
+    assertEquals(1, transport.dropped());
+  }
+
+  @Test
+  public void dropsMessagesWhenTheBufferIsFull() throws Exception {
+    ServerSocketChannel closed = listen(0);
+    InetSocketAddress address = (InetSocketAddress) closed.getLocalAddress();
+    closed.close();
+
+    transport = open(address, TransportSocket.Protocol.TCP, TransportSocket.Framing.NDJSON, 1024);
+    for (int i = 0; i < 50; i++)
+      transport.receive(message("message " + i));
+
+    assertTrue("Nothing was dropped", transport.dropped() > 0);
+    assertTrue("Nothing was buffered", transport.queued() > 0);
+    assertEquals(50, transport.queued() + transport.dropped());
+    assertTrue(transport.buffered() <= 1024);
+    await(() -> transport.failures() > 0);
+    assertEquals(0, transport.connections());
+    assertEquals(0, transport.bytesSent());
+  }
+
+  @Test
+  public void keepsRetryingAnUnresolvedCollector() throws Exception {
+    InetSocketAddress address = InetSocketAddress.createUnresolved("collector.invalid", 9);
+    transport = open(address, TransportSocket.Protocol.TCP, TransportSocket.Framing.NDJSON,
+        TransportSocket.DEFAULT_BUFFER_SIZE);
+    transport.receive(message("waiting"));
+
+    await(() -> transport.failures() > 1);
+    assertEquals(1, transport.queued());
+    assertEquals(0, transport.connections());
+    assertTrue(transport.buffered() > 0);
+  }
+
+  @Test
+  public void reconnectsAfterTheCollectorRestarts() throws Exception {
+    ServerSocketChannel server = listen(0);
+    InetSocketAddress address = (InetSocketAddress) server.getLocalAddress();
+    transport = open(address, TransportSocket.Protocol.TCP, TransportSocket.Framing.NDJSON,
+        TransportSocket.DEFAULT_BUFFER_SIZE);
+    transport.receive(message("before"));
+    SocketChannel client = accept(server);
+    assertTrue(reader(client).readLine().contains("\"message\":\"before\""));
+    assertEquals(1, transport.connections());
+
+    client.close();
+    server.close();
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (transport.connected() && System.currentTimeMillis() < deadline) {
+      transport.receive(message("lost"));
+      Thread.sleep(20);
+    }
+    assertTrue("The lost connection was not noticed", !transport.connected());
+
+    server = listen(address.getPort());
+    server.configureBlocking(false);
+    client = null;
+    deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (client == null && System.currentTimeMillis() < deadline) {
+      transport.receive(message("after"));
+      Thread.sleep(20);
+      client = server.accept();
+    }
+    assertNotNull("The collector was not reconnected to", client);
+    resources.add(client);
+    client.configureBlocking(true);
+
+    BufferedReader in = reader(client);
+    String line;
+    do {
+      line = in.readLine();
+      assertNotNull(line);
+    } while (!line.contains("\"message\":\"after\""));
+    await(transport::connected);
+    assertEquals(2, transport.connections());
+    assertTrue(transport.failures() > 0);
+  }
+
+  private TransportSocket open(SocketAddress address, TransportSocket.Protocol protocol,
+                               TransportSocket.Framing framing, int bufferBytes) throws IOException {
+    return new TransportSocket("test", LoggingLevel.INFO, (InetSocketAddress) address, protocol, framing,
+        bufferBytes);
+  }
+
+  private Transport.TransportedMessage message(String text) {
+    return new Transport.TransportedMessage(text, logger, LoggingLevel.INFO);
+  }
+
+  private ServerSocketChannel listen(int port) throws IOException {
+    ServerSocketChannel server = ServerSocketChannel.open();
+    resources.add(server);
+    server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+    server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    return server;
+  }
+
+  private SocketChannel accept(ServerSocketChannel server) throws IOException {
+    server.socket().setSoTimeout(TIMEOUT_MILLIS);
+    SocketChannel client = server.socket().accept().getChannel();
+    resources.add(client);
+    client.socket().setSoTimeout(TIMEOUT_MILLIS);
+    return client;
+  }
+
+  private BufferedReader reader(SocketChannel client) throws IOException {
+    client.socket().setSoTimeout(TIMEOUT_MILLIS);
+    return new BufferedReader(new InputStreamReader(client.socket().getInputStream(), StandardCharsets.UTF_8));
+  }
+
+  private static String readFrame(DataInputStream in) throws IOException {
+    byte[] frame = new byte[in.readInt()];
+    in.readFully(frame);
+    return new String(frame, StandardCharsets.UTF_8);
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!condition.getAsBoolean()) {
+      assertTrue("Timed out", System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+    }
+  }
+
+}